@@ -0,0 +1,83 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.sdk.CerbosBlockingClient;
+import dev.cerbos.sdk.CerbosClientBuilder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Time to complete {@code concurrency} simultaneous checks against a PDP that takes {@code latencyMillis} to answer.
+ * With the default platform pool ({@code cerbos.async.pool-size=16}) the time grows with concurrency once it exceeds
+ * the pool; on Java 21+ run with {@code -p virtualThreads=true} to compare against virtual threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AsyncAuthorizationBenchmark {
+
+    @Param({"16", "160"})
+    public int concurrency;
+
+    @Param({"5"})
+    public int latencyMillis;
+
+    @Param({"false"})
+    public boolean virtualThreads;
+
+    private StubPdpServer pdp;
+    private CerbosAuthorizationExecutor executor;
+    private CerbosAuthorizationService service;
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() throws Exception {
+        CerbosProperties properties = new CerbosProperties();
+        CerbosProperties.StubPdp stub = properties.getPdp().getStub();
+        stub.setLatency(Duration.ofMillis(latencyMillis));
+        stub.setRules(List.of(new CerbosProperties.StubRule()));
+        pdp = new StubPdpServer(stub);
+        CerbosBlockingClient client = new CerbosClientBuilder(pdp.target()).withPlaintext().buildBlockingClient();
+        executor = new CerbosAuthorizationExecutor(properties.getAsync(), virtualThreads);
+        service = new CerbosAuthorizationService(client, properties, null, null, executor.executor());
+        User user = new User("alice", "password", List.of(() -> "ROLE_employee"));
+        authentication = new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        executor.destroy();
+        pdp.destroy();
+    }
+
+    @Benchmark
+    public boolean concurrentChecks() {
+        CompletableFuture<?>[] checks = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            checks[i] = service.checkPermissionAsync(
+                    authentication, "document", "doc-" + i, "read", Map.of("owner", "alice"), Map.of());
+        }
+        CompletableFuture.allOf(checks).join();
+        return checks[concurrency - 1].isDone();
+    }
+}
@@ -0,0 +1,81 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.sdk.builders.AttributeValue;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Converts resource attributes shaped like the ones the demo sends: a document with nested content, tags and scores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AttributeConversionBenchmark {
+
+    private Map<String, Object> mutableAttributes;
+    private Map<String, Object> immutableAttributes;
+    private Document document;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> review = new LinkedHashMap<>();
+        review.put("approved", true);
+        review.put("reviewers", new ArrayList<>(List.of("bob", "carol")));
+        review.put("scores", new int[] {3, 4, 5, 4});
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("title", "Quarterly plan");
+        content.put("pages", 12);
+        content.put("tags", new ArrayList<>(List.of("finance", "q3", "draft")));
+        content.put("weights", new double[] {0.25, 0.5, 0.25});
+        content.put("review", review);
+
+        mutableAttributes = new LinkedHashMap<>();
+        mutableAttributes.put("owner", "alice");
+        mutableAttributes.put("department", "sales");
+        mutableAttributes.put("content", content);
+
+        Map<String, Object> immutableContent = Map.of(
+                "title", "Quarterly plan",
+                "pages", 12,
+                "tags", List.of("finance", "q3", "draft"),
+                "review", Map.of("approved", true, "reviewers", List.of("bob", "carol")));
+        immutableAttributes = new LinkedHashMap<>();
+        immutableAttributes.put("owner", "alice");
+        immutableAttributes.put("department", "sales");
+        immutableAttributes.put("content", immutableContent);
+
+        document = new Document("alpha", "alice", immutableContent);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> convertMutableAttributes() {
+        return AttributeValueConverter.fromObjectMap(mutableAttributes);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> convertImmutableAttributes() {
+        return AttributeValueConverter.fromObjectMap(immutableAttributes);
+    }
+
+    @Benchmark
+    public AttributeValue convertRecord() {
+        return AttributeValueConverter.fromObject(document);
+    }
+}
@@ -0,0 +1,83 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.sdk.CerbosBlockingClient;
+import dev.cerbos.sdk.CerbosClientBuilder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+/**
+ * The full HTTP guard, {@link CerbosAuthorizationManager#check}, against a {@link StubPdpServer} that allows everything without delay, with
+ * the decision cache and micro-batching switched on and off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class AuthorizationManagerBenchmark {
+
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+
+    @Param({"false", "true"})
+    public boolean batchingEnabled;
+
+    private StubPdpServer pdp;
+    private CerbosAuthorizationManager manager;
+    private Authentication authentication;
+    private RequestAuthorizationContext context;
+
+    @Setup
+    public void setUp() throws Exception {
+        CerbosProperties.StubRule allowAll = new CerbosProperties.StubRule();
+        CerbosProperties.StubPdp stub = new CerbosProperties.StubPdp();
+        stub.setRules(List.of(allowAll));
+        pdp = new StubPdpServer(stub);
+        CerbosBlockingClient client = new CerbosClientBuilder(pdp.target()).withPlaintext().buildBlockingClient();
+        CerbosProperties properties = new CerbosProperties();
+        properties.getCache().setEnabled(cacheEnabled);
+        properties.getBatching().setEnabled(batchingEnabled);
+        CerbosDecisionCache cache = cacheEnabled ? new CerbosDecisionCache(properties.getCache()) : null;
+        CerbosBatchingDispatcher dispatcher = batchingEnabled ? new CerbosBatchingDispatcher(client, properties.getBatching()) : null;
+        CerbosAuthorizationService service =
+                new CerbosAuthorizationService(client, properties, cache, dispatcher, Runnable::run);
+        manager = new CerbosAuthorizationManager(service);
+
+        User user = new User("alice", "password", List.of(() -> "ROLE_employee"));
+        authentication = new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/alpha");
+        request.addHeader("Accept", "application/json");
+        context = new RequestAuthorizationContext(request);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pdp.destroy();
+    }
+
+    @Benchmark
+    public AuthorizationDecision check() {
+        return manager.check(() -> authentication, context);
+    }
+}
@@ -0,0 +1,89 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.sdk.CerbosClientBuilder;
+import dev.cerbos.sdk.CerbosClientBuilder.InvalidClientConfigurationException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Check throughput from 64 threads against a PDP that allows {@code maxConcurrentStreams} concurrent calls per
+ * connection and takes {@code latencyMillis} to answer. With one channel, calls beyond the stream limit queue on the
+ * connection; {@code cerbos.pdp.channels} spreads them over several connections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(64)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChannelPoolBenchmark {
+
+    @Param({"1", "4"})
+    public int channels;
+
+    @Param({"16"})
+    public int maxConcurrentStreams;
+
+    @Param({"2"})
+    public int latencyMillis;
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    private StubPdpServer pdp;
+    private CerbosLoadBalancer balancer;
+    private CerbosAuthorizationService service;
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() {
+        CerbosProperties properties = new CerbosProperties();
+        CerbosProperties.StubPdp stub = properties.getPdp().getStub();
+        stub.setLatency(Duration.ofMillis(latencyMillis));
+        stub.setMaxConcurrentStreams(maxConcurrentStreams);
+        stub.setRules(List.of(new CerbosProperties.StubRule()));
+        pdp = new StubPdpServer(stub);
+        properties.getPdp().setChannels(channels);
+        balancer = new CerbosLoadBalancer(List.of(pdp.target()), properties.getPdp(), target -> {
+            try {
+                return new CerbosClientBuilder(target).withPlaintext().buildBlockingClient();
+            } catch (InvalidClientConfigurationException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        service = new CerbosAuthorizationService(
+                balancer, properties, null, null, Runnable::run, CerbosMetrics.noop(), CerbosResilience.disabled());
+        User user = new User("alice", "password", List.of(() -> "ROLE_employee"));
+        authentication = new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        balancer.destroy();
+        pdp.destroy();
+    }
+
+    @Benchmark
+    public boolean check() {
+        return service.checkPermission(
+                authentication, "document", "doc-" + nextId.incrementAndGet(), "read", Map.of(), Map.of());
+    }
+}
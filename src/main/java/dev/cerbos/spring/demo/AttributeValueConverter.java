@@ -1,65 +1,245 @@
 package dev.cerbos.spring.demo;
 
 import dev.cerbos.sdk.builders.AttributeValue;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Converts plain Java values into Cerbos {@link AttributeValue}s.
+ *
+ * <p>The conversion strategy is resolved once per class. Records are converted through their accessors; any other
+ * object is sent as its {@code toString()}, so getters of arbitrary beans (such as a password) never reach the PDP.
+ */
 final class AttributeValueConverter {
 
+    private static final int MAX_DEPTH = 32;
+
+    private static final AttributeValue NULL_VALUE = AttributeValue.stringValue("null");
+    private static final AttributeValue TRUE_VALUE = AttributeValue.boolValue(true);
+    private static final AttributeValue FALSE_VALUE = AttributeValue.boolValue(false);
+
+    private static final Strategy TO_STRING = (value, depth) -> AttributeValue.stringValue(value.toString());
+
+    private static final ClassValue<Strategy> STRATEGIES = new ClassValue<>() {
+        @Override
+        protected Strategy computeValue(Class<?> type) {
+            return strategyFor(type);
+        }
+    };
+
     private AttributeValueConverter() {
     }
 
     static Map<String, AttributeValue> fromObjectMap(Map<String, ?> attributes) {
-        Map<String, AttributeValue> converted = new LinkedHashMap<>();
         if (attributes == null) {
-            return converted;
+            return new LinkedHashMap<>();
         }
-        attributes.forEach((key, value) -> converted.put(key, fromObject(value)));
-        return converted;
+        return convertEntries(attributes, 0);
     }
 
     static AttributeValue fromObject(Object value) {
+        return convert(value, 0);
+    }
+
+    private static AttributeValue convert(Object value, int depth) {
         if (value == null) {
-            return AttributeValue.stringValue("null");
+            return NULL_VALUE;
+        }
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Attribute value is nested more than " + MAX_DEPTH + " levels deep");
+        }
+        return STRATEGIES.get(value.getClass()).convert(value, depth);
+    }
+
+    private static Strategy strategyFor(Class<?> type) {
+        if (AttributeValue.class.isAssignableFrom(type)) {
+            return (value, depth) -> (AttributeValue) value;
+        }
+        if (type == String.class) {
+            return (value, depth) -> AttributeValue.stringValue((String) value);
         }
-        if (value instanceof AttributeValue attrValue) {
-            return attrValue;
+        if (type == Boolean.class) {
+            return (value, depth) -> (Boolean) value ? TRUE_VALUE : FALSE_VALUE;
         }
-        if (value instanceof String strValue) {
-            return AttributeValue.stringValue(strValue);
+        if (Number.class.isAssignableFrom(type)) {
+            return (value, depth) -> AttributeValue.doubleValue(((Number) value).doubleValue());
         }
-        if (value instanceof Number numberValue) {
-            return AttributeValue.doubleValue(numberValue.doubleValue());
+        if (Enum.class.isAssignableFrom(type)) {
+            return (value, depth) -> AttributeValue.stringValue(((Enum<?>) value).name());
         }
-        if (value instanceof Boolean boolValue) {
-            return AttributeValue.boolValue(boolValue);
+        if (Map.class.isAssignableFrom(type)) {
+            return (value, depth) -> AttributeValue.mapValue(convertEntries((Map<?, ?>) value, depth + 1));
         }
-        if (value instanceof Enum<?> enumValue) {
-            return AttributeValue.stringValue(enumValue.name());
+        if (Collection.class.isAssignableFrom(type)) {
+            return (value, depth) -> convertCollection((Collection<?>) value, depth + 1);
         }
-        if (value instanceof Map<?, ?> mapValue) {
-            Map<String, Object> sanitized = new LinkedHashMap<>();
-            mapValue.forEach((k, v) -> {
-                if (k != null) {
-                    sanitized.put(String.valueOf(k), v);
+        if (type.isArray()) {
+            return arrayStrategy(type);
+        }
+        if (type.isRecord()) {
+            return propertyStrategy(recordProperties(type));
+        }
+        return TO_STRING;
+    }
+
+    private static Map<String, AttributeValue> convertEntries(Map<?, ?> map, int depth) {
+        Map<String, AttributeValue> converted = new LinkedHashMap<>((int) (map.size() / 0.75f) + 1);
+        map.forEach((key, value) -> {
+            if (key != null) {
+                converted.put(key instanceof String name ? name : String.valueOf(key), convert(value, depth));
+            }
+        });
+        return converted;
+    }
+
+    private static AttributeValue convertCollection(Collection<?> collection, int depth) {
+        List<AttributeValue> list = new ArrayList<>(collection.size());
+        for (Object element : collection) {
+            list.add(convert(element, depth));
+        }
+        return AttributeValue.listValue(list);
+    }
+
+    private static Strategy arrayStrategy(Class<?> type) {
+        Class<?> component = type.getComponentType();
+        if (component == int.class) {
+            return (value, depth) -> {
+                int[] array = (int[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (int element : array) {
+                    list.add(AttributeValue.doubleValue(element));
                 }
-            });
-            return AttributeValue.mapValue(fromObjectMap(sanitized));
+                return AttributeValue.listValue(list);
+            };
         }
-        if (value instanceof Collection<?> collectionValue) {
-            List<AttributeValue> list = collectionValue.stream().map(AttributeValueConverter::fromObject).toList();
-            return AttributeValue.listValue(list);
+        if (component == long.class) {
+            return (value, depth) -> {
+                long[] array = (long[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (long element : array) {
+                    list.add(AttributeValue.doubleValue(element));
+                }
+                return AttributeValue.listValue(list);
+            };
         }
-        if (value.getClass().isArray()) {
-            int length = java.lang.reflect.Array.getLength(value);
-            List<AttributeValue> list = java.util.stream.IntStream.range(0, length)
-                    .mapToObj(index -> java.lang.reflect.Array.get(value, index))
-                    .map(AttributeValueConverter::fromObject)
-                    .toList();
+        if (component == double.class) {
+            return (value, depth) -> {
+                double[] array = (double[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (double element : array) {
+                    list.add(AttributeValue.doubleValue(element));
+                }
+                return AttributeValue.listValue(list);
+            };
+        }
+        if (component == float.class) {
+            return (value, depth) -> {
+                float[] array = (float[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (float element : array) {
+                    list.add(AttributeValue.doubleValue(element));
+                }
+                return AttributeValue.listValue(list);
+            };
+        }
+        if (component == short.class) {
+            return (value, depth) -> {
+                short[] array = (short[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (short element : array) {
+                    list.add(AttributeValue.doubleValue(element));
+                }
+                return AttributeValue.listValue(list);
+            };
+        }
+        if (component == byte.class) {
+            return (value, depth) -> {
+                byte[] array = (byte[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (byte element : array) {
+                    list.add(AttributeValue.doubleValue(element));
+                }
+                return AttributeValue.listValue(list);
+            };
+        }
+        if (component == boolean.class) {
+            return (value, depth) -> {
+                boolean[] array = (boolean[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (boolean element : array) {
+                    list.add(element ? TRUE_VALUE : FALSE_VALUE);
+                }
+                return AttributeValue.listValue(list);
+            };
+        }
+        if (component == char.class) {
+            return (value, depth) -> {
+                char[] array = (char[]) value;
+                List<AttributeValue> list = new ArrayList<>(array.length);
+                for (char element : array) {
+                    list.add(AttributeValue.stringValue(String.valueOf(element)));
+                }
+                return AttributeValue.listValue(list);
+            };
+        }
+        return (value, depth) -> {
+            Object[] array = (Object[]) value;
+            List<AttributeValue> list = new ArrayList<>(array.length);
+            for (Object element : array) {
+                list.add(convert(element, depth + 1));
+            }
             return AttributeValue.listValue(list);
+        };
+    }
+
+    private static Strategy propertyStrategy(List<Property> properties) {
+        if (properties.isEmpty()) {
+            return TO_STRING;
+        }
+        Property[] accessors = properties.toArray(Property[]::new);
+        return (value, depth) -> {
+            Map<String, AttributeValue> converted = new LinkedHashMap<>((int) (accessors.length / 0.75f) + 1);
+            for (Property property : accessors) {
+                converted.put(property.name(), convert(property.read(value), depth + 1));
+            }
+            return AttributeValue.mapValue(converted);
+        };
+    }
+
+    private static List<Property> recordProperties(Class<?> type) {
+        List<Property> properties = new ArrayList<>();
+        for (RecordComponent component : type.getRecordComponents()) {
+            Method accessor = component.getAccessor();
+            if (!accessor.trySetAccessible()) {
+                return List.of();
+            }
+            properties.add(new Property(component.getName(), accessor));
+        }
+        return properties;
+    }
+
+    @FunctionalInterface
+    private interface Strategy {
+
+        AttributeValue convert(Object value, int depth);
+    }
+
+    private record Property(String name, Method reader) {
+
+        Object read(Object target) {
+            try {
+                return reader.invoke(target);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException("Cannot read attribute property " + name, ex);
+            } catch (InvocationTargetException ex) {
+                throw new IllegalStateException("Failed to read attribute property " + name, ex.getCause());
+            }
         }
-        return AttributeValue.stringValue(value.toString());
     }
 }
@@ -0,0 +1,17 @@
+package dev.cerbos.spring.demo;
+
+import java.util.Collections;
+import java.util.List;
+
+public class BatchGetRequest {
+
+    private List<String> documentIds = Collections.emptyList();
+
+    public List<String> getDocumentIds() {
+        return documentIds;
+    }
+
+    public void setDocumentIds(List<String> documentIds) {
+        this.documentIds = documentIds != null ? documentIds : Collections.emptyList();
+    }
+}
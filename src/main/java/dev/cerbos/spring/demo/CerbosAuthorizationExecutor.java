@@ -0,0 +1,53 @@
+package dev.cerbos.spring.demo;
+
+import java.util.concurrent.Executor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Owns the threads behind {@link CerbosAuthorizationService#checkPermissionAsync}. In virtual-thread mode every check
+ * runs on its own virtual thread; otherwise a bounded platform thread pool is used. This type deliberately does not
+ * implement {@link Executor}, so registering it as a bean does not stop Spring Boot from auto-configuring its own
+ * {@code applicationTaskExecutor}.
+ */
+public class CerbosAuthorizationExecutor implements DisposableBean {
+
+    private static final String THREAD_NAME_PREFIX = "cerbos-authz-";
+
+    private final AsyncTaskExecutor executor;
+    private final ThreadPoolTaskExecutor pool;
+
+    public CerbosAuthorizationExecutor(CerbosProperties.Async config, boolean virtualThreads) {
+        if (virtualThreads) {
+            this.executor = new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX);
+            this.pool = null;
+        } else {
+            ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor();
+            threadPool.setThreadNamePrefix(THREAD_NAME_PREFIX);
+            threadPool.setCorePoolSize(config.getPoolSize());
+            threadPool.setMaxPoolSize(config.getPoolSize());
+            threadPool.setQueueCapacity(config.getQueueCapacity());
+            threadPool.setWaitForTasksToCompleteOnShutdown(true);
+            threadPool.initialize();
+            this.executor = threadPool;
+            this.pool = threadPool;
+        }
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    public boolean isVirtual() {
+        return pool == null;
+    }
+
+    @Override
+    public void destroy() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -2,41 +2,164 @@ package dev.cerbos.spring.demo;
 
 import dev.cerbos.sdk.CerbosBlockingClient;
 import dev.cerbos.sdk.CheckResourcesResult;
+import dev.cerbos.sdk.CheckResult;
+import dev.cerbos.sdk.PlanResourcesResult;
 import dev.cerbos.sdk.builders.Principal;
+import dev.cerbos.sdk.builders.Resource;
 import dev.cerbos.sdk.builders.ResourceAction;
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.util.StringUtils;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 
 public class CerbosAuthorizationService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CerbosAuthorizationService.class);
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
 
-    private final CerbosBlockingClient client;
+    private final CerbosLoadBalancer pdp;
     private final CerbosProperties properties;
+    private final CerbosDecisionCache decisionCache;
+    private final CerbosBatchingDispatcher batchingDispatcher;
+    private final Executor asyncExecutor;
+    private final HttpAttributeProjection attributeProjection;
+    private final HttpRouteMatcher routeMatcher;
+    private final CerbosMetrics metrics;
+    private final CerbosResilience resilience;
+    private final Set<String> staleActions;
+    private final LocalPolicyEngine localPolicies;
+    private final CerbosDecisionLog decisionLog;
 
     public CerbosAuthorizationService(CerbosBlockingClient client, CerbosProperties properties) {
-        this.client = client;
+        this(client, properties, null, null, Runnable::run);
+    }
+
+    public CerbosAuthorizationService(
+            CerbosBlockingClient client,
+            CerbosProperties properties,
+            CerbosDecisionCache decisionCache,
+            CerbosBatchingDispatcher batchingDispatcher,
+            Executor asyncExecutor) {
+        this(client, properties, decisionCache, batchingDispatcher, asyncExecutor, CerbosMetrics.noop());
+    }
+
+    public CerbosAuthorizationService(
+            CerbosBlockingClient client,
+            CerbosProperties properties,
+            CerbosDecisionCache decisionCache,
+            CerbosBatchingDispatcher batchingDispatcher,
+            Executor asyncExecutor,
+            CerbosMetrics metrics) {
+        this(client, properties, decisionCache, batchingDispatcher, asyncExecutor, metrics, CerbosResilience.disabled());
+    }
+
+    public CerbosAuthorizationService(
+            CerbosBlockingClient client,
+            CerbosProperties properties,
+            CerbosDecisionCache decisionCache,
+            CerbosBatchingDispatcher batchingDispatcher,
+            Executor asyncExecutor,
+            CerbosMetrics metrics,
+            CerbosResilience resilience) {
+        this(CerbosLoadBalancer.single(client), properties, decisionCache, batchingDispatcher, asyncExecutor, metrics,
+                resilience);
+    }
+
+    public CerbosAuthorizationService(
+            CerbosLoadBalancer pdp,
+            CerbosProperties properties,
+            CerbosDecisionCache decisionCache,
+            CerbosBatchingDispatcher batchingDispatcher,
+            Executor asyncExecutor,
+            CerbosMetrics metrics,
+            CerbosResilience resilience) {
+        this(pdp, properties, decisionCache, batchingDispatcher, asyncExecutor, metrics, resilience, null);
+    }
+
+    /**
+     * @param localPolicies decides checks in-process where it can, or {@code null} to send every check to the PDP
+     */
+    public CerbosAuthorizationService(
+            CerbosLoadBalancer pdp,
+            CerbosProperties properties,
+            CerbosDecisionCache decisionCache,
+            CerbosBatchingDispatcher batchingDispatcher,
+            Executor asyncExecutor,
+            CerbosMetrics metrics,
+            CerbosResilience resilience,
+            LocalPolicyEngine localPolicies) {
+        this(pdp, properties, decisionCache, batchingDispatcher, asyncExecutor, metrics, resilience, localPolicies,
+                null);
+    }
+
+    /**
+     * @param decisionLog receives every decision, or {@code null} when decisions are not audited
+     */
+    public CerbosAuthorizationService(
+            CerbosLoadBalancer pdp,
+            CerbosProperties properties,
+            CerbosDecisionCache decisionCache,
+            CerbosBatchingDispatcher batchingDispatcher,
+            Executor asyncExecutor,
+            CerbosMetrics metrics,
+            CerbosResilience resilience,
+            LocalPolicyEngine localPolicies,
+            CerbosDecisionLog decisionLog) {
+        this.pdp = pdp;
         this.properties = properties;
+        this.decisionCache = decisionCache;
+        this.batchingDispatcher = batchingDispatcher;
+        this.asyncExecutor = Objects.requireNonNull(asyncExecutor);
+        this.attributeProjection = new HttpAttributeProjection(properties.getHttp());
+        this.routeMatcher = new HttpRouteMatcher(properties.getHttp().getRoutes());
+        this.metrics = Objects.requireNonNull(metrics);
+        this.resilience = Objects.requireNonNull(resilience);
+        this.localPolicies = localPolicies;
+        this.decisionLog = decisionLog;
+        CerbosProperties.StaleIfError staleIfError = properties.getResilience().getStaleIfError();
+        this.staleActions = staleIfError.isEnabled() ? Set.copyOf(staleIfError.getActions()) : Set.of();
     }
 
     public boolean isAllowed(Authentication authentication, HttpServletRequest request) {
         CerbosProperties.Http httpConfig = properties.getHttp();
-        String action = httpConfig.resolveAction(request.getMethod());
-        String resourceKind = httpConfig.getResourceKind();
-        Map<String, Object> resourceAttributes = buildResourceAttributes(request);
-        return checkPermission(authentication, resourceKind, request.getRequestURI(), action, resourceAttributes, Map.of());
+        Map<String, Object> resourceAttributes = attributeProjection.project(request);
+        HttpRouteMatcher.Match route = routeMatcher.isEmpty() ? null : routeMatcher.match(request);
+        ResourceCheck check;
+        if (route != null) {
+            String action = route.action() != null ? route.action() : httpConfig.resolveAction(request.getMethod());
+            if (!route.variables().isEmpty()) {
+                resourceAttributes.put("pathVariables", route.variables());
+            }
+            check = new ResourceCheck(route.kind(), route.id(), resourceAttributes, action);
+        } else {
+            String action = httpConfig.resolveAction(request.getMethod());
+            check = new ResourceCheck(
+                    httpConfig.getResourceKind(), request.getRequestURI(), resourceAttributes, action);
+        }
+        return evaluate(
+                CerbosCallSite.HTTP,
+                authentication,
+                check,
+                resolvePrefetch(request),
+                Map.of(),
+                CerbosRequestContext.current());
     }
 
     public boolean checkPermission(
@@ -46,87 +169,511 @@ public class CerbosAuthorizationService {
             String action,
             Map<String, Object> resourceAttributes,
             Map<String, Object> principalAttributes) {
+        return checkPermission(
+                CerbosCallSite.METHOD,
+                authentication,
+                resourceKind,
+                resourceId,
+                action,
+                resourceAttributes,
+                principalAttributes);
+    }
+
+    /**
+     * Variant of {@link #checkPermission} that records {@code callSite} in the Cerbos metrics.
+     */
+    public boolean checkPermission(
+            CerbosCallSite callSite,
+            Authentication authentication,
+            String resourceKind,
+            String resourceId,
+            String action,
+            Map<String, Object> resourceAttributes,
+            Map<String, Object> principalAttributes) {
+        Map<String, Object> safeResourceAttributes = resourceAttributes != null ? resourceAttributes : Map.of();
+        ResourceCheck check = new ResourceCheck(resourceKind, resourceId, safeResourceAttributes, action);
+        return evaluate(
+                callSite, authentication, check, List.of(), principalAttributes, CerbosRequestContext.current());
+    }
+
+    /**
+     * Checks every action in {@code actions} against every resource, packing them into as few {@code CheckResources}
+     * calls as {@code cerbos.pdp.max-resources-per-request} allows. Decisions already known from the current request
+     * or the decision cache are not sent again.
+     *
+     * @return decisions keyed by resource id, then by action
+     */
+    public Map<String, Map<String, Boolean>> checkPermissions(
+            Authentication authentication, List<CerbosResource> resources, Set<String> actions) {
+        return checkPermissions(authentication, resources, actions, Map.of());
+    }
+
+    /**
+     * Variant of {@link #checkPermissions} that adds {@code principalAttributes} to the principal.
+     */
+    public Map<String, Map<String, Boolean>> checkPermissions(
+            Authentication authentication,
+            List<CerbosResource> resources,
+            Set<String> actions,
+            Map<String, Object> principalAttributes) {
+        Map<String, Map<String, Boolean>> decisions = new LinkedHashMap<>();
         if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
+            resources.forEach(resource -> decisions.put(resource.id(), denyAll(actions)));
+            return decisions;
+        }
+
+        long began = System.nanoTime();
+        long epoch = cacheEpoch();
+        CerbosRequestContext requestContext = CerbosRequestContext.current();
+        PrincipalSnapshot snapshot = principalSnapshot(authentication, requestContext);
+        Map<String, Object> principalAttrs = snapshot.attributes(principalAttributes);
+
+        List<CerbosResource> pending = new ArrayList<>();
+        Map<String, List<String>> pendingActions = new LinkedHashMap<>();
+        for (CerbosResource resource : resources) {
+            if (decisions.containsKey(resource.id())) {
+                throw new IllegalArgumentException("Duplicate resource id in bulk check: " + resource.id());
+            }
+            Map<String, Boolean> resourceDecisions = new LinkedHashMap<>();
+            List<String> unknown = new ArrayList<>();
+            for (String action : actions) {
+                Boolean local = decideLocally(
+                        snapshot, principalAttrs, resource.kind(), resource.id(), resource.attributes(), action);
+                if (local != null) {
+                    decided(CerbosCallSite.BULK, snapshot, resource.kind(), resource.id(), action, local,
+                            CerbosMetrics.SOURCE_LOCAL, began);
+                    resourceDecisions.put(action, local);
+                    continue;
+                }
+                Boolean known = lookup(bulkKey(snapshot, principalAttrs, resource, action), requestContext);
+                if (known != null) {
+                    decided(CerbosCallSite.BULK, snapshot, resource.kind(), resource.id(), action, known,
+                            CerbosMetrics.SOURCE_CACHE, began);
+                    resourceDecisions.put(action, known);
+                } else {
+                    unknown.add(action);
+                }
+            }
+            decisions.put(resource.id(), resourceDecisions);
+            if (!unknown.isEmpty()) {
+                pending.add(resource);
+                pendingActions.put(resource.id(), unknown);
+            }
+        }
+        if (pending.isEmpty()) {
+            return decisions;
+        }
+
+        Principal principal = snapshot.toPrincipal(principalAttributes);
+        PrincipalKey principalKey = snapshot.toKey(principalAttrs);
+        String actionTag = actions.size() == 1 ? actions.iterator().next() : "multiple";
+        int chunkSize = Math.max(1, properties.getPdp().getMaxResourcesPerRequest());
+        for (int start = 0; start < pending.size(); start += chunkSize) {
+            List<CerbosResource> chunk = pending.subList(start, Math.min(start + chunkSize, pending.size()));
+            Map<String, ResourceAction> resourceActions = new LinkedHashMap<>();
+            int attributeCount = principalAttrs.size();
+            for (CerbosResource resource : chunk) {
+                ResourceAction resourceAction = ResourceAction.newInstance(resource.kind(), resource.id());
+                resourceAction.withAttributes(AttributeValueConverter.fromObjectMap(resource.attributes()));
+                resourceAction.withActions(pendingActions.get(resource.id()).toArray(String[]::new));
+                resourceActions.put(resource.id(), resourceAction);
+                attributeCount += resource.attributes().size();
+            }
+            String kindTag = chunk.get(0).kind();
+            long started = metrics.callStarted(chunk.size(), attributeCount);
+            CheckResourcesResult result;
+            try {
+                result = send(principalKey, principal, resourceActions);
+            } catch (RuntimeException ex) {
+                metrics.callFailed(started, CerbosCallSite.BULK, kindTag, actionTag, ex);
+                if (serveStale(snapshot, principalAttrs, chunk, pendingActions, decisions, ex, began)) {
+                    continue;
+                }
+                LOGGER.error("Failed to evaluate authorization via Cerbos", ex);
+                throw new AccessDeniedException("Failed to evaluate authorization via Cerbos", ex);
+            }
+            int allowedCount = 0;
+            int decidedCount = 0;
+            for (CerbosResource resource : chunk) {
+                Optional<CheckResult> checkResult = result.find(resource.id());
+                for (String action : pendingActions.get(resource.id())) {
+                    boolean allowed = checkResult.map(found -> found.isAllowed(action)).orElse(false);
+                    record(bulkKey(snapshot, principalAttrs, resource, action), allowed, requestContext, epoch);
+                    decided(CerbosCallSite.BULK, snapshot, resource.kind(), resource.id(), action, allowed,
+                            CerbosMetrics.SOURCE_PDP, began);
+                    decisions.get(resource.id()).put(action, allowed);
+                    decidedCount++;
+                    allowedCount += allowed ? 1 : 0;
+                }
+            }
+            String outcome = allowedCount == decidedCount ? "allow" : allowedCount == 0 ? "deny" : "mixed";
+            metrics.callCompleted(started, CerbosCallSite.BULK, kindTag, actionTag, outcome);
         }
+        return decisions;
+    }
 
-        List<String> roles = extractRoles(authentication.getAuthorities());
-        Principal principal = Principal.newInstance(authentication.getName(), roles.toArray(String[]::new));
-        Map<String, Object> mergedPrincipalAttrs = buildPrincipalAttributes(authentication, roles, principalAttributes);
-        principal.withAttributes(AttributeValueConverter.fromObjectMap(mergedPrincipalAttrs));
+    /**
+     * Asynchronous variant of {@link #checkPermission}. The PDP call runs on the authorization executor so callers can
+     * overlap it with other work, such as loading the resource being authorized. Failures complete the future
+     * exceptionally with an {@link AccessDeniedException}.
+     */
+    public CompletableFuture<Boolean> checkPermissionAsync(
+            Authentication authentication,
+            String resourceKind,
+            String resourceId,
+            String action,
+            Map<String, Object> resourceAttributes,
+            Map<String, Object> principalAttributes) {
+        return checkPermissionAsync(
+                CerbosCallSite.METHOD,
+                authentication,
+                resourceKind,
+                resourceId,
+                action,
+                resourceAttributes,
+                principalAttributes);
+    }
 
-        ResourceAction resource = ResourceAction.newInstance(resourceKind, resourceId);
+    /**
+     * Variant of {@link #checkPermissionAsync} that records {@code callSite} in the Cerbos metrics.
+     */
+    public CompletableFuture<Boolean> checkPermissionAsync(
+            CerbosCallSite callSite,
+            Authentication authentication,
+            String resourceKind,
+            String resourceId,
+            String action,
+            Map<String, Object> resourceAttributes,
+            Map<String, Object> principalAttributes) {
         Map<String, Object> safeResourceAttributes = resourceAttributes != null ? resourceAttributes : Map.of();
-        resource.withAttributes(AttributeValueConverter.fromObjectMap(safeResourceAttributes));
-        resource.withActions(action);
+        ResourceCheck check = new ResourceCheck(resourceKind, resourceId, safeResourceAttributes, action);
+        CerbosRequestContext requestContext = CerbosRequestContext.current();
+        try {
+            return CompletableFuture.supplyAsync(
+                    () -> evaluate(callSite, authentication, check, List.of(), principalAttributes, requestContext),
+                    asyncExecutor);
+        } catch (RejectedExecutionException ex) {
+            // A saturated pool must not turn into denials: check on the caller's thread instead.
+            LOGGER.debug("Cerbos authorization executor rejected a check, evaluating it on the calling thread");
+            try {
+                return CompletableFuture.completedFuture(
+                        evaluate(callSite, authentication, check, List.of(), principalAttributes, requestContext));
+            } catch (RuntimeException failure) {
+                return CompletableFuture.failedFuture(failure);
+            }
+        }
+    }
 
+    /**
+     * Waits for a decision produced by {@link #checkPermissionAsync}, rethrowing its failure unwrapped.
+     */
+    public static boolean await(CompletableFuture<Boolean> decision) {
         try {
-            CheckResourcesResult result = client.batch(principal).addResources(resource).check();
-            return result.find(resourceId)
-                    .map(checkResult -> checkResult.isAllowed(action))
-                    .orElse(false);
+            return decision.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof AccessDeniedException accessDenied) {
+                throw accessDenied;
+            }
+            throw new AccessDeniedException("Failed to evaluate authorization via Cerbos", ex.getCause());
+        }
+    }
+
+    /**
+     * Asks the PDP for a query plan covering every resource of {@code resourceKind} and compiles it into a predicate,
+     * so a collection can be filtered with a single PDP call. {@code variables} maps plan variables such as
+     * {@code request.resource.attr.owner} to accessors on candidates. When the plan uses an expression or variable the
+     * compiler does not understand, {@code null} is returned and the caller has to check candidates itself.
+     */
+    public <T> Predicate<T> planResourceFilter(
+            Authentication authentication,
+            String resourceKind,
+            String action,
+            Function<String, Function<T, Object>> variables) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return candidate -> false;
+        }
+
+        PrincipalSnapshot snapshot = principalSnapshot(authentication, CerbosRequestContext.current());
+        Principal principal = snapshot.toPrincipal(Map.of());
+
+        PlanResourcesResult plan;
+        long started = metrics.callStarted(1, snapshot.attributes(Map.of()).size());
+        try {
+            plan = resilience.call(
+                    () -> pdp.call(client -> client.plan(principal, Resource.newInstance(resourceKind), action)));
         } catch (RuntimeException ex) {
+            metrics.callFailed(started, CerbosCallSite.PLAN, resourceKind, action, ex);
+            LOGGER.error("Failed to plan resources via Cerbos", ex);
+            throw new AccessDeniedException("Failed to plan resources via Cerbos", ex);
+        }
+        if (plan.isAlwaysAllowed()) {
+            metrics.callCompleted(started, CerbosCallSite.PLAN, resourceKind, action, "always_allowed");
+            return candidate -> true;
+        }
+        if (plan.isAlwaysDenied() || plan.getCondition().isEmpty()) {
+            metrics.callCompleted(started, CerbosCallSite.PLAN, resourceKind, action, "always_denied");
+            return candidate -> false;
+        }
+        metrics.callCompleted(started, CerbosCallSite.PLAN, resourceKind, action, "conditional");
+        try {
+            return QueryPlanCompiler.compile(plan.getCondition().get(), variables);
+        } catch (UnsupportedOperationException ex) {
+            LOGGER.warn("Falling back to batched checks for {}:{}: {}", resourceKind, action, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Evaluates {@code check} and, in the same PDP call, any {@code prefetch} checks whose decisions are not known yet.
+     * Decisions are memoized for the rest of the current servlet request and, when enabled, in the decision cache, so
+     * later checks with identical inputs (for example the {@code @PreAuthorize} guard behind an HTTP request) are
+     * answered without another round-trip.
+     */
+    private boolean evaluate(
+            CerbosCallSite callSite,
+            Authentication authentication,
+            ResourceCheck check,
+            List<ResourceCheck> prefetch,
+            Map<String, Object> principalAttributes,
+            CerbosRequestContext requestContext) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+
+        long began = System.nanoTime();
+        long epoch = cacheEpoch();
+        PrincipalSnapshot snapshot = principalSnapshot(authentication, requestContext);
+        Map<String, Object> mergedPrincipalAttrs = snapshot.attributes(principalAttributes);
+
+        Boolean local = decideLocally(
+                snapshot, mergedPrincipalAttrs, check.kind(), check.id(), check.attributes(), check.action());
+        if (local != null) {
+            decided(callSite, snapshot, check, local, CerbosMetrics.SOURCE_LOCAL, began);
+            return local;
+        }
+
+        DecisionKey key = check.toKey(snapshot, mergedPrincipalAttrs);
+        Boolean known = lookup(key, requestContext);
+        if (known != null) {
+            decided(callSite, snapshot, check, known, CerbosMetrics.SOURCE_CACHE, began);
+            return known;
+        }
+
+        Map<DecisionKey, ResourceCheck> batch = new LinkedHashMap<>();
+        batch.put(key, check);
+        Set<String> resourceIds = new HashSet<>();
+        resourceIds.add(check.id());
+        for (ResourceCheck candidate : prefetch) {
+            DecisionKey candidateKey = candidate.toKey(snapshot, mergedPrincipalAttrs);
+            if (resourceIds.add(candidate.id()) && lookup(candidateKey, requestContext) == null) {
+                batch.put(candidateKey, candidate);
+            }
+        }
+
+        Principal principal = snapshot.toPrincipal(principalAttributes);
+        Map<String, ResourceAction> resources = new LinkedHashMap<>();
+        int attributeCount = mergedPrincipalAttrs.size();
+        for (ResourceCheck batchCheck : batch.values()) {
+            resources.put(batchCheck.id(), batchCheck.toResourceAction());
+            attributeCount += batchCheck.attributes().size();
+        }
+
+        long started = metrics.callStarted(resources.size(), attributeCount);
+        boolean allowed;
+        try {
+            PrincipalKey principalKey = snapshot.toKey(mergedPrincipalAttrs);
+            CheckResourcesResult result = send(principalKey, principal, resources);
+            batch.forEach((batchKey, batchCheck) -> record(batchKey, batchCheck.isAllowed(result), requestContext, epoch));
+            allowed = batch.get(key).isAllowed(result);
+        } catch (RuntimeException ex) {
+            metrics.callFailed(started, callSite, check.kind(), check.action(), ex);
+            Boolean stale = staleDecision(key, check.action());
+            if (stale != null) {
+                LOGGER.warn("Serving stale decision for {}:{} while Cerbos is unavailable: {}",
+                        check.kind(), check.action(), ex.toString());
+                decided(callSite, snapshot, check, stale, CerbosMetrics.SOURCE_STALE, began);
+                return stale;
+            }
             LOGGER.error("Failed to evaluate authorization via Cerbos", ex);
             throw new AccessDeniedException("Failed to evaluate authorization via Cerbos", ex);
         }
+        metrics.callCompleted(started, callSite, check.kind(), check.action(), allowed ? "allow" : "deny");
+        decided(callSite, snapshot, check, allowed, CerbosMetrics.SOURCE_PDP, began);
+        return allowed;
     }
 
-    private Map<String, Object> buildPrincipalAttributes(
-            Authentication authentication, List<String> roles, Map<String, Object> additionalAttributes) {
-        Map<String, Object> attributes = new LinkedHashMap<>();
-        attributes.put("roles", roles);
-        if (authentication.getPrincipal() instanceof UserDetails userDetails) {
-            attributes.put("accountNonExpired", userDetails.isAccountNonExpired());
-            attributes.put("accountNonLocked", userDetails.isAccountNonLocked());
-            attributes.put("credentialsNonExpired", userDetails.isCredentialsNonExpired());
-            attributes.put("enabled", userDetails.isEnabled());
+    private CheckResourcesResult send(
+            PrincipalKey principalKey, Principal principal, Map<String, ResourceAction> resources) {
+        return resilience.call(() -> {
+            if (batchingDispatcher != null) {
+                return batchingDispatcher.check(principalKey, principal, resources);
+            }
+            return pdp.call(client -> client.batch(principal)
+                    .addResources(resources.values().toArray(ResourceAction[]::new))
+                    .check());
+        });
+    }
+
+    /**
+     * Returns a recently expired cached decision for {@code action} when stale-if-error allows it, or {@code null}.
+     */
+    private Boolean staleDecision(DecisionKey key, String action) {
+        if (decisionCache == null || !staleActions.contains(action)) {
+            return null;
         }
-        if (additionalAttributes != null && !additionalAttributes.isEmpty()) {
-            attributes.putAll(additionalAttributes);
+        return decisionCache.getStale(key);
+    }
+
+    /**
+     * Fills in a failed bulk chunk from stale decisions. Succeeds only when every pending decision in the chunk has
+     * one, so callers never see a partial answer.
+     */
+    private boolean serveStale(
+            PrincipalSnapshot snapshot,
+            Map<String, Object> principalAttrs,
+            List<CerbosResource> chunk,
+            Map<String, List<String>> pendingActions,
+            Map<String, Map<String, Boolean>> decisions,
+            RuntimeException failure,
+            long began) {
+        Map<CerbosResource, Map<String, Boolean>> stale = new LinkedHashMap<>();
+        for (CerbosResource resource : chunk) {
+            Map<String, Boolean> resourceDecisions = new LinkedHashMap<>();
+            for (String action : pendingActions.get(resource.id())) {
+                Boolean decision = staleDecision(bulkKey(snapshot, principalAttrs, resource, action), action);
+                if (decision == null) {
+                    return false;
+                }
+                resourceDecisions.put(action, decision);
+            }
+            stale.put(resource, resourceDecisions);
         }
-        return attributes;
+        LOGGER.warn("Serving stale decisions for {} resources while Cerbos is unavailable: {}",
+                stale.size(), failure.toString());
+        stale.forEach((resource, resourceDecisions) -> resourceDecisions.forEach((action, allowed) -> {
+            decided(CerbosCallSite.BULK, snapshot, resource.kind(), resource.id(), action, allowed,
+                    CerbosMetrics.SOURCE_STALE, began);
+            decisions.get(resource.id()).put(action, allowed);
+        }));
+        return true;
     }
 
-    private Map<String, Object> buildResourceAttributes(HttpServletRequest request) {
-        Map<String, Object> attributes = new LinkedHashMap<>();
-        attributes.put("method", request.getMethod());
-        attributes.put("path", request.getRequestURI());
-        attributes.put("query", request.getQueryString());
-        attributes.put("remoteAddr", request.getRemoteAddr());
-        attributes.put("headers", extractHeaders(request));
-        attributes.put("segments", extractSegments(request.getRequestURI()));
-        return attributes;
+    private void decided(
+            CerbosCallSite callSite,
+            PrincipalSnapshot snapshot,
+            ResourceCheck check,
+            boolean allowed,
+            String source,
+            long began) {
+        decided(callSite, snapshot, check.kind(), check.id(), check.action(), allowed, source, began);
     }
 
-    private Map<String, List<String>> extractHeaders(HttpServletRequest request) {
-        Map<String, List<String>> headers = new LinkedHashMap<>();
-        Collections.list(request.getHeaderNames()).forEach(name ->
-                headers.put(name.toLowerCase(), Collections.list(request.getHeaders(name))));
-        return headers;
+    /**
+     * Records a decision in the metrics and, except for warm-up checks, in the audit log.
+     */
+    private void decided(
+            CerbosCallSite callSite,
+            PrincipalSnapshot snapshot,
+            String kind,
+            String id,
+            String action,
+            boolean allowed,
+            String source,
+            long began) {
+        metrics.decision(callSite, kind, action, allowed, source);
+        if (decisionLog != null && callSite != CerbosCallSite.WARMUP) {
+            decisionLog.record(callSite, snapshot.id(), kind, id, action, allowed, source, System.nanoTime() - began);
+        }
     }
 
-    private List<String> extractSegments(String uri) {
-        if (!StringUtils.hasText(uri)) {
-            return List.of();
+    private Boolean decideLocally(
+            PrincipalSnapshot snapshot,
+            Map<String, Object> principalAttrs,
+            String kind,
+            String id,
+            Map<String, Object> resourceAttributes,
+            String action) {
+        if (localPolicies == null) {
+            return null;
         }
-        String sanitized = uri.startsWith("/") ? uri.substring(1) : uri;
-        if (!StringUtils.hasText(sanitized)) {
-            return List.of();
+        return localPolicies.decide(snapshot, principalAttrs, kind, id, resourceAttributes, action);
+    }
+
+    private Boolean lookup(DecisionKey key, CerbosRequestContext requestContext) {
+        Boolean known = requestContext != null ? requestContext.get(key) : null;
+        if (known == null && decisionCache != null) {
+            known = decisionCache.get(key);
         }
-        return List.of(sanitized.split("/"));
+        return known;
+    }
+
+    /**
+     * The decision cache epoch to tag PDP answers with. It is read before the cache lookup, so a decision whose call
+     * overlapped an epoch change is never cached.
+     */
+    private long cacheEpoch() {
+        return decisionCache != null ? decisionCache.epoch() : 0L;
+    }
+
+    private void record(DecisionKey key, boolean allowed, CerbosRequestContext requestContext, long epoch) {
+        if (requestContext != null) {
+            requestContext.put(key, allowed);
+        }
+        if (decisionCache != null) {
+            decisionCache.put(key, allowed, epoch);
+        }
+    }
+
+    private static PrincipalSnapshot principalSnapshot(
+            Authentication authentication, CerbosRequestContext requestContext) {
+        return requestContext != null ? requestContext.principal(authentication) : PrincipalSnapshot.of(authentication);
     }
 
-    private List<String> extractRoles(Iterable<? extends GrantedAuthority> authorities) {
-        if (authorities == null) {
+    private static DecisionKey bulkKey(
+            PrincipalSnapshot snapshot, Map<String, Object> principalAttrs, CerbosResource resource, String action) {
+        return new DecisionKey(
+                snapshot.id(), snapshot.roles(), principalAttrs, resource.kind(), resource.id(), resource.attributes(),
+                action);
+    }
+
+    private static Map<String, Boolean> denyAll(Set<String> actions) {
+        Map<String, Boolean> denied = new LinkedHashMap<>();
+        actions.forEach(action -> denied.put(action, false));
+        return denied;
+    }
+
+    private List<ResourceCheck> resolvePrefetch(HttpServletRequest request) {
+        List<CerbosProperties.Prefetch> rules = properties.getHttp().getPrefetch();
+        if (rules.isEmpty()) {
             return List.of();
         }
-        return (
-                        authorities instanceof Collection<? extends GrantedAuthority> collection
-                                ? collection.stream()
-                                : java.util.stream.StreamSupport.stream(authorities.spliterator(), false))
-                .map(GrantedAuthority::getAuthority)
-                .filter(StringUtils::hasText)
-                .map(role -> role.replaceFirst("^ROLE_", ""))
-                .collect(Collectors.toList());
+        String path = HttpRouteMatcher.pathWithinApplication(request);
+        List<ResourceCheck> checks = new ArrayList<>(rules.size());
+        for (CerbosProperties.Prefetch rule : rules) {
+            if (rule.matches(request.getMethod(), path, PATH_MATCHER)) {
+                checks.add(new ResourceCheck(rule.getResourceKind(), rule.getResourceId(), Map.of(), rule.getAction()));
+            }
+        }
+        return checks;
+    }
+
+    private record ResourceCheck(String kind, String id, Map<String, Object> attributes, String action) {
+
+        DecisionKey toKey(PrincipalSnapshot principal, Map<String, Object> principalAttributes) {
+            return new DecisionKey(principal.id(), principal.roles(), principalAttributes, kind, id, attributes, action);
+        }
+
+        ResourceAction toResourceAction() {
+            ResourceAction resource = ResourceAction.newInstance(kind, id);
+            resource.withAttributes(AttributeValueConverter.fromObjectMap(attributes));
+            resource.withActions(action);
+            return resource;
+        }
+
+        boolean isAllowed(CheckResourcesResult result) {
+            return result.find(id)
+                    .map(checkResult -> checkResult.isAllowed(action))
+                    .orElse(false);
+        }
     }
 }
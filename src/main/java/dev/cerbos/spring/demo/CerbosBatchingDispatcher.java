@@ -0,0 +1,176 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.sdk.CerbosBlockingClient;
+import dev.cerbos.sdk.CheckResourcesResult;
+import dev.cerbos.sdk.builders.Principal;
+import dev.cerbos.sdk.builders.ResourceAction;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces concurrent checks for the same principal into a single {@code CheckResources} call.
+ *
+ * <p>The first caller for a principal opens a batch and waits up to {@code window} for others to join; it then sends
+ * the batch and every participant reads its own resources from the shared result. A batch is sent early once it holds
+ * {@code maxBatchSize} resources. Callers that cannot join the open batch, because it is full or already contains one
+ * of their resource ids, send their request directly.
+ */
+public class CerbosBatchingDispatcher {
+
+    private final CerbosLoadBalancer pdp;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Map<PrincipalKey, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public CerbosBatchingDispatcher(CerbosBlockingClient client, CerbosProperties.Batching config) {
+        this(CerbosLoadBalancer.single(client), config);
+    }
+
+    public CerbosBatchingDispatcher(CerbosLoadBalancer pdp, CerbosProperties.Batching config) {
+        this.pdp = pdp;
+        this.windowNanos = config.getWindow().toNanos();
+        this.maxBatchSize = Math.max(1, config.getMaxBatchSize());
+    }
+
+    public CheckResourcesResult check(
+            PrincipalKey principalKey, Principal principal, Map<String, ResourceAction> resources) {
+        if (resources.size() >= maxBatchSize) {
+            return send(principal, resources);
+        }
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(principalKey, key -> new Batch(principal));
+            Participation participation = batch.join(resources);
+            switch (participation) {
+                case LEADER -> {
+                    batch.awaitWindow(windowNanos);
+                    dispatch(principalKey, batch);
+                    return batch.await();
+                }
+                case FILLED -> {
+                    dispatch(principalKey, batch);
+                    return batch.await();
+                }
+                case FOLLOWER -> {
+                    return batch.await();
+                }
+                case CLOSED -> openBatches.remove(principalKey, batch);
+                case REJECTED -> {
+                    return send(principal, resources);
+                }
+            }
+        }
+    }
+
+    private void dispatch(PrincipalKey principalKey, Batch batch) {
+        if (!batch.close()) {
+            return;
+        }
+        openBatches.remove(principalKey, batch);
+        try {
+            batch.result.complete(send(batch.principal, batch.resources));
+        } catch (RuntimeException ex) {
+            batch.result.completeExceptionally(ex);
+        }
+    }
+
+    private CheckResourcesResult send(Principal principal, Map<String, ResourceAction> resources) {
+        return pdp.call(client -> client.batch(principal)
+                .addResources(resources.values().toArray(ResourceAction[]::new))
+                .check());
+    }
+
+    private enum Participation {
+        LEADER,
+        FOLLOWER,
+        FILLED,
+        CLOSED,
+        REJECTED
+    }
+
+    private final class Batch {
+
+        private final Principal principal;
+        private final Map<String, ResourceAction> resources = new LinkedHashMap<>();
+        private final CompletableFuture<CheckResourcesResult> result = new CompletableFuture<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private Thread leader;
+        private boolean closed;
+
+        private Batch(Principal principal) {
+            this.principal = principal;
+        }
+
+        Participation join(Map<String, ResourceAction> additions) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return Participation.CLOSED;
+                }
+                if (resources.size() + additions.size() > maxBatchSize
+                        || additions.keySet().stream().anyMatch(resources::containsKey)) {
+                    return Participation.REJECTED;
+                }
+                resources.putAll(additions);
+                if (leader == null) {
+                    leader = Thread.currentThread();
+                    return Participation.LEADER;
+                }
+                return resources.size() >= maxBatchSize ? Participation.FILLED : Participation.FOLLOWER;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean close() {
+            Thread waitingLeader;
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                waitingLeader = leader;
+            } finally {
+                lock.unlock();
+            }
+            if (waitingLeader != null && waitingLeader != Thread.currentThread()) {
+                LockSupport.unpark(waitingLeader);
+            }
+            return true;
+        }
+
+        void awaitWindow(long nanos) {
+            long deadline = System.nanoTime() + nanos;
+            long remaining = nanos;
+            while (remaining > 0 && !isClosed()) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+
+        CheckResourcesResult await() {
+            try {
+                return result.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+
+        private boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dev.cerbos.spring.demo;
+
+import java.util.Locale;
+
+/**
+ * Where an authorization check originated, used to tag Cerbos metrics.
+ */
+public enum CerbosCallSite {
+
+    HTTP,
+    PRE_AUTHORIZE,
+    POST_AUTHORIZE,
+    METHOD,
+    BULK,
+    PLAN,
+    WARMUP;
+
+    private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+    public String tagValue() {
+        return tagValue;
+    }
+}
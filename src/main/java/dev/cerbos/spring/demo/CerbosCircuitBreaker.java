@@ -0,0 +1,154 @@
+package dev.cerbos.spring.demo;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for PDP calls. The outcome of the last {@code windowSize} calls is kept; once at least
+ * {@code minimumCalls} have been seen and either the failure rate or the slow-call rate reaches its threshold, the
+ * circuit opens and calls are rejected without reaching the PDP. After {@code openDuration} a limited number of trial
+ * calls is let through: if they all succeed in time the circuit closes, otherwise it opens again.
+ */
+public class CerbosCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier ticker;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final byte[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    public CerbosCircuitBreaker(CerbosProperties.CircuitBreaker config) {
+        this(config, System::nanoTime);
+    }
+
+    CerbosCircuitBreaker(CerbosProperties.CircuitBreaker config, LongSupplier ticker) {
+        this.windowSize = Math.max(1, config.getWindowSize());
+        this.minimumCalls = Math.max(1, Math.min(config.getMinimumCalls(), windowSize));
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.slowCallNanos = config.getSlowCallDuration().toNanos();
+        this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.halfOpenCalls = Math.max(1, config.getHalfOpenCalls());
+        this.ticker = ticker;
+        this.outcomes = new byte[windowSize];
+    }
+
+    /**
+     * Returns whether a call may be sent to the PDP now. Every permitted call must be followed by {@link #onSuccess}
+     * or {@link #onFailure}.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (ticker.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialPermits = halfOpenCalls;
+                trialSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialPermits == 0) {
+                    return false;
+                }
+                trialPermits--;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long elapsedNanos) {
+        record(false, elapsedNanos >= slowCallNanos);
+    }
+
+    public void onFailure(long elapsedNanos) {
+        record(true, elapsedNanos >= slowCallNanos);
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    add((byte) ((failed ? 1 : 0) | (slow ? 2 : 0)));
+                    if (recorded >= minimumCalls
+                            && (failures >= failureRateThreshold * recorded
+                                    || slowCalls >= slowCallRateThreshold * recorded)) {
+                        open();
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (failed || slow) {
+                        open();
+                    } else if (++trialSuccesses >= halfOpenCalls) {
+                        state = State.CLOSED;
+                        reset();
+                    }
+                }
+                case OPEN -> {
+                    // a call that started before the circuit opened; its outcome is no longer relevant
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(byte outcome) {
+        if (recorded == windowSize) {
+            byte evicted = outcomes[position];
+            failures -= evicted & 1;
+            slowCalls -= (evicted >> 1) & 1;
+        } else {
+            recorded++;
+        }
+        outcomes[position] = outcome;
+        failures += outcome & 1;
+        slowCalls += (outcome >> 1) & 1;
+        position = (position + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = ticker.getAsLong();
+        reset();
+    }
+
+    private void reset() {
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -3,13 +3,20 @@ package dev.cerbos.spring.demo;
 import dev.cerbos.sdk.CerbosBlockingClient;
 import dev.cerbos.sdk.CerbosClientBuilder;
 import dev.cerbos.sdk.CerbosClientBuilder.InvalidClientConfigurationException;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.StringUtils;
 
 @Configuration(proxyBeanMethods = false)
@@ -18,21 +25,161 @@ public class CerbosClientConfiguration {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CerbosClientConfiguration.class);
 
+    /**
+     * Balances checks over the endpoints in {@code cerbos.pdp.targets}. A {@link CerbosBlockingClient} bean, if one is
+     * defined, is used on its own instead, and so is the stub PDP when enabled.
+     */
     @Bean
     @ConditionalOnMissingBean
-    public CerbosBlockingClient cerbosBlockingClient(CerbosProperties properties) {
+    public CerbosLoadBalancer cerbosLoadBalancer(
+            CerbosProperties properties,
+            ObjectProvider<CerbosBlockingClient> cerbosBlockingClient,
+            ObjectProvider<StubPdpServer> stubPdpServer) {
         CerbosProperties.Pdp pdp = properties.getPdp();
-        CerbosClientBuilder builder = new CerbosClientBuilder(pdp.getTarget());
+        CerbosBlockingClient client = cerbosBlockingClient.getIfAvailable();
+        if (client != null) {
+            return CerbosLoadBalancer.single(client);
+        }
+        StubPdpServer stub = stubPdpServer.getIfAvailable();
+        if (stub != null) {
+            return new CerbosLoadBalancer(List.of(stub.target()), pdp, target -> buildClient(pdp, target, true));
+        }
+        return new CerbosLoadBalancer(pdp, target -> buildClient(pdp, target, false));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.pdp.stub", name = "enabled", havingValue = "true")
+    public StubPdpServer stubPdpServer(CerbosProperties properties) {
+        return new StubPdpServer(properties.getPdp().getStub());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.cache", name = "enabled", havingValue = "true")
+    public CerbosDecisionCache cerbosDecisionCache(CerbosProperties properties, CerbosMetrics cerbosMetrics) {
+        CerbosProperties.StaleIfError staleIfError = properties.getResilience().getStaleIfError();
+        CerbosDecisionCache decisionCache = new CerbosDecisionCache(
+                properties.getCache(), staleIfError.isEnabled() ? staleIfError.getMaxStaleness() : Duration.ZERO);
+        cerbosMetrics.bindDecisionCache(decisionCache);
+        return decisionCache;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.cache", name = "enabled", havingValue = "true")
+    public CerbosPolicyWatcher cerbosPolicyWatcher(
+            CerbosProperties properties,
+            CerbosDecisionCache cerbosDecisionCache,
+            ObjectProvider<LocalPolicyEngine> localPolicyEngine,
+            ResourceLoader resourceLoader) {
+        return new CerbosPolicyWatcher(
+                properties.getCache().getInvalidation(),
+                cerbosDecisionCache,
+                localPolicyEngine.getIfAvailable(),
+                resourceLoader);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.cache", name = "enabled", havingValue = "true")
+    public CerbosEpochEndpoint cerbosEpochEndpoint(CerbosDecisionCache cerbosDecisionCache) {
+        return new CerbosEpochEndpoint(cerbosDecisionCache);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.batching", name = "enabled", havingValue = "true")
+    public CerbosBatchingDispatcher cerbosBatchingDispatcher(
+            CerbosLoadBalancer cerbosLoadBalancer, CerbosProperties properties) {
+        return new CerbosBatchingDispatcher(cerbosLoadBalancer, properties.getBatching());
+    }
+
+    /**
+     * With {@code spring.threads.virtual.enabled=true} on Java 21+ asynchronous checks run on virtual threads, matching
+     * the servlet container; otherwise they use a bounded platform thread pool sized by {@code cerbos.async.*}.
+     */
+    @Bean
+    public CerbosAuthorizationExecutor cerbosAuthorizationExecutor(
+            CerbosProperties properties, Environment environment) {
+        return new CerbosAuthorizationExecutor(properties.getAsync(), Threading.VIRTUAL.isActive(environment));
+    }
+
+    /**
+     * Cerbos meters are registered with the actuator's {@link MeterRegistry}; without one they are not recorded.
+     */
+    @Bean
+    public CerbosMetrics cerbosMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        return registry != null ? new CerbosMetrics(registry) : CerbosMetrics.noop();
+    }
+
+    @Bean
+    public CerbosResilience cerbosResilience(CerbosProperties properties) {
+        return new CerbosResilience(properties.getResilience(), properties.getPdp().getTimeout());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.local", name = "enabled", havingValue = "true")
+    public LocalPolicyEngine localPolicyEngine(CerbosProperties properties) {
+        return LocalPolicyEngine.load(properties.getLocal().getPolicies());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.audit", name = "enabled", havingValue = "true")
+    public CerbosDecisionLog cerbosDecisionLog(CerbosProperties properties, CerbosMetrics cerbosMetrics) {
+        CerbosDecisionLog decisionLog = new CerbosDecisionLog(properties.getAudit());
+        cerbosMetrics.bindDecisionLog(decisionLog);
+        return decisionLog;
+    }
+
+    @Bean
+    public CerbosAuthorizationService cerbosAuthorizationService(
+            CerbosLoadBalancer cerbosLoadBalancer,
+            CerbosProperties properties,
+            ObjectProvider<CerbosDecisionCache> decisionCache,
+            ObjectProvider<CerbosBatchingDispatcher> batchingDispatcher,
+            CerbosAuthorizationExecutor cerbosAuthorizationExecutor,
+            CerbosMetrics cerbosMetrics,
+            CerbosResilience cerbosResilience,
+            ObjectProvider<LocalPolicyEngine> localPolicyEngine,
+            ObjectProvider<CerbosDecisionLog> decisionLog) {
+        return new CerbosAuthorizationService(
+                cerbosLoadBalancer,
+                properties,
+                decisionCache.getIfAvailable(),
+                batchingDispatcher.getIfAvailable(),
+                cerbosAuthorizationExecutor.executor(),
+                cerbosMetrics,
+                cerbosResilience,
+                localPolicyEngine.getIfAvailable(),
+                decisionLog.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "cerbos.warmup", name = "enabled", havingValue = "true")
+    public CerbosWarmup cerbosWarmup(
+            CerbosAuthorizationService cerbosAuthorizationService,
+            CerbosLoadBalancer cerbosLoadBalancer,
+            ObjectProvider<CerbosDecisionCache> decisionCache,
+            CerbosProperties properties) {
+        return new CerbosWarmup(
+                cerbosAuthorizationService, cerbosLoadBalancer, decisionCache.getIfAvailable(), properties.getWarmup());
+    }
+
+    @Bean
+    public CerbosAuthorizationManager cerbosAuthorizationManager(
+            CerbosAuthorizationService authorizationService) {
+        return new CerbosAuthorizationManager(authorizationService);
+    }
+
+    private static CerbosBlockingClient buildClient(CerbosProperties.Pdp pdp, String target, boolean stub) {
+        CerbosClientBuilder builder = new CerbosClientBuilder(target);
         Duration timeout = pdp.getTimeout();
         if (timeout != null) {
             builder.withTimeout(timeout);
         }
-        if (pdp.isPlaintext()) {
+        if (stub || pdp.isPlaintext()) {
             builder.withPlaintext();
         } else if (pdp.isInsecure()) {
             builder.withInsecure();
         }
-        if (StringUtils.hasText(pdp.getPlaygroundInstance())) {
+        if (!stub && StringUtils.hasText(pdp.getPlaygroundInstance())) {
             builder.withPlaygroundInstance(pdp.getPlaygroundInstance());
         }
         try {
@@ -42,16 +189,4 @@ public class CerbosClientConfiguration {
             throw new IllegalStateException("Failed to create Cerbos client", ex);
         }
     }
-
-    @Bean
-    public CerbosAuthorizationService cerbosAuthorizationService(
-            CerbosBlockingClient cerbosBlockingClient, CerbosProperties properties) {
-        return new CerbosAuthorizationService(cerbosBlockingClient, properties);
-    }
-
-    @Bean
-    public CerbosAuthorizationManager cerbosAuthorizationManager(
-            CerbosAuthorizationService authorizationService) {
-        return new CerbosAuthorizationManager(authorizationService);
-    }
 }
@@ -0,0 +1,162 @@
+package dev.cerbos.spring.demo;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-process cache of Cerbos decisions. Allowed and denied outcomes expire after their own TTL, and once the
+ * cache grows beyond {@code maxEntries} expired entries are purged first, followed by arbitrary live ones until the
+ * cache is back under its limit.
+ *
+ * <p>With a non-zero {@code staleRetention}, expired entries are kept for that long after they expire so that
+ * {@link #getStale} can answer while the PDP is unavailable.
+ *
+ * <p>Every entry belongs to the decision epoch that was current before its PDP call. {@link #advanceEpoch} makes all
+ * earlier entries unreadable at once, stale ones included, so a policy change never has to wait out the TTL; the
+ * orphaned entries are dropped lazily when they are next read or evicted.
+ */
+public class CerbosDecisionCache {
+
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final Map<DecisionKey, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final AtomicLong epoch = new AtomicLong();
+    private final long allowTtlNanos;
+    private final long denyTtlNanos;
+    private final long staleRetentionNanos;
+    private final int maxEntries;
+    private final LongSupplier ticker;
+
+    public CerbosDecisionCache(CerbosProperties.Cache config) {
+        this(config, Duration.ZERO);
+    }
+
+    public CerbosDecisionCache(CerbosProperties.Cache config, Duration staleRetention) {
+        this(config, staleRetention, System::nanoTime);
+    }
+
+    CerbosDecisionCache(CerbosProperties.Cache config, LongSupplier ticker) {
+        this(config, Duration.ZERO, ticker);
+    }
+
+    CerbosDecisionCache(CerbosProperties.Cache config, Duration staleRetention, LongSupplier ticker) {
+        this.allowTtlNanos = toNanos(config.resolveAllowTtl());
+        this.denyTtlNanos = toNanos(config.resolveDenyTtl());
+        this.staleRetentionNanos = toNanos(staleRetention);
+        this.maxEntries = Math.max(1, config.getMaxEntries());
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns the cached decision for the key, or {@code null} when there is none or it has expired.
+     */
+    public Boolean get(DecisionKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.epoch() != epoch.get()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        long now = ticker.getAsLong();
+        if (entry.isExpired(now)) {
+            if (entry.isExpired(now - staleRetentionNanos)) {
+                entries.remove(key, entry);
+            }
+            return null;
+        }
+        return entry.allowed();
+    }
+
+    /**
+     * Returns the decision for the key even if it has expired, as long as it expired no more than
+     * {@code staleRetention} ago; {@code null} otherwise.
+     */
+    public Boolean getStale(DecisionKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null
+                || entry.epoch() != epoch.get()
+                || entry.isExpired(ticker.getAsLong() - staleRetentionNanos)) {
+            return null;
+        }
+        return entry.allowed();
+    }
+
+    public void put(DecisionKey key, boolean allowed) {
+        put(key, allowed, epoch.get());
+    }
+
+    /**
+     * Caches a decision the PDP made while {@code decisionEpoch} was current. Decisions from an earlier epoch are
+     * discarded, since the policies behind them may already have changed.
+     */
+    public void put(DecisionKey key, boolean allowed, long decisionEpoch) {
+        long ttlNanos = allowed ? allowTtlNanos : denyTtlNanos;
+        if (ttlNanos <= 0 || decisionEpoch != epoch.get()) {
+            return;
+        }
+        entries.put(key, new Entry(allowed, ticker.getAsLong() + ttlNanos, decisionEpoch));
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Starts a new decision epoch, invalidating every decision cached so far without locking or clearing the cache.
+     */
+    public long advanceEpoch() {
+        return epoch.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = ticker.getAsLong();
+            long current = epoch.get();
+            int target = (int) (maxEntries * EVICTION_TARGET);
+            entries.values().removeIf(entry -> entry.epoch() != current || entry.isExpired(now - staleRetentionNanos));
+            if (entries.size() > target) {
+                entries.values().removeIf(entry -> entry.isExpired(now));
+            }
+            Iterator<DecisionKey> keys = entries.keySet().iterator();
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static long toNanos(Duration duration) {
+        return duration != null ? duration.toNanos() : 0L;
+    }
+
+    private record Entry(boolean allowed, long expiresAtNanos, long epoch) {
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package dev.cerbos.spring.demo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Audit trail of authorization decisions. {@link #record} only places the decision in a bounded lock-free ring buffer,
+ * so it never blocks the request thread; when the buffer is full the decision is dropped and counted instead. A
+ * background thread drains the buffer in batches and appends one JSON object per decision to memory-mapped files of
+ * {@code max-file-size} in {@code cerbos.audit.directory}, keeping the newest {@code max-files}.
+ *
+ * <p>A closed file is truncated to the bytes written. A file left open by a crash ends in zero bytes, which readers
+ * should skip.
+ *
+ * <p>When a file cannot be written the writer abandons it and retries the same decision in a new file, backing off from
+ * {@code flush-interval} up to {@link #MAX_RETRY_BACKOFF} between attempts. Decisions keep queueing, and are dropped
+ * once the buffer fills, until a write succeeds again; {@link #healthy()} is false in the meantime.
+ */
+public class CerbosDecisionLog implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CerbosDecisionLog.class);
+    private static final String FILE_PREFIX = "decisions-";
+    private static final String FILE_SUFFIX = ".ndjson";
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS").withZone(ZoneOffset.UTC);
+    static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(10);
+
+    private final CerbosProperties.Audit config;
+    private final Path directory;
+    private final long maxFileSize;
+    private final Ring ring;
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final LongAdder failures = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean healthy = true;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int fileSequence;
+
+    public CerbosDecisionLog(CerbosProperties.Audit config) {
+        this.config = config;
+        this.directory = Path.of(config.getDirectory());
+        this.maxFileSize = config.getMaxFileSize().toBytes();
+        if (maxFileSize <= 0 || maxFileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("cerbos.audit.max-file-size must be between 1B and 2GB");
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to create Cerbos audit directory " + directory, ex);
+        }
+        this.ring = new Ring(config.getBufferSize());
+        this.writer = new Thread(this::drain, "cerbos-decision-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a decision for the audit log without blocking.
+     */
+    public void record(
+            CerbosCallSite site,
+            String principal,
+            String kind,
+            String resourceId,
+            String action,
+            boolean allowed,
+            String source,
+            long latencyNanos) {
+        Entry entry = new Entry(
+                System.currentTimeMillis(), site, principal, kind, resourceId, action, allowed, source, latencyNanos);
+        if (!ring.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Decisions dropped because the buffer was full.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Decisions written to the audit files.
+     */
+    public long written() {
+        return written.get();
+    }
+
+    /**
+     * Decisions waiting in the buffer.
+     */
+    public int pending() {
+        return ring.size();
+    }
+
+    /**
+     * Failed attempts to write an audit file.
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * Whether the last write attempt succeeded.
+     */
+    public boolean healthy() {
+        return healthy;
+    }
+
+    /**
+     * Writes out the decisions still buffered and closes the current file.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void drain() {
+        Entry[] batch = new Entry[Math.max(1, config.getBatchSize())];
+        StringBuilder line = new StringBuilder(256);
+        long idleNanos = Math.max(1, config.getFlushInterval().toNanos());
+        long backoffNanos = 0;
+        int count = 0;
+        int next = 0;
+        try {
+            while (running || next < count || ring.size() > 0) {
+                if (next == count) {
+                    count = ring.drain(batch);
+                    next = 0;
+                    if (count == 0) {
+                        LockSupport.parkNanos(this, idleNanos);
+                        continue;
+                    }
+                }
+                try {
+                    while (next < count) {
+                        line.setLength(0);
+                        append(encode(batch[next], line).toString().getBytes(StandardCharsets.UTF_8));
+                        batch[next++] = null;
+                        written.incrementAndGet();
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    failures.increment();
+                    healthy = false;
+                    abandon();
+                    if (!running) {
+                        int remaining = count - next + ring.size();
+                        dropped.add(remaining);
+                        LOGGER.error("Failed to write Cerbos audit file while shutting down; dropped {} decisions",
+                                remaining, ex);
+                        return;
+                    }
+                    backoffNanos = Math.min(Math.max(idleNanos, backoffNanos * 2), MAX_RETRY_BACKOFF.toNanos());
+                    LOGGER.warn("Failed to write Cerbos audit file, retrying in {} ms",
+                            TimeUnit.NANOSECONDS.toMillis(backoffNanos), ex);
+                    LockSupport.parkNanos(this, backoffNanos);
+                    continue;
+                }
+                if (!healthy) {
+                    LOGGER.info("Cerbos decision log writer recovered");
+                    healthy = true;
+                }
+                backoffNanos = 0;
+            }
+        } finally {
+            try {
+                close();
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to close Cerbos audit file", ex);
+            }
+        }
+    }
+
+    private void append(byte[] bytes) throws IOException {
+        if (buffer == null || buffer.remaining() < bytes.length) {
+            rotate(bytes.length);
+        }
+        buffer.put(bytes);
+    }
+
+    private void rotate(int required) throws IOException {
+        close();
+        String name = FILE_PREFIX + FILE_TIMESTAMP.format(Instant.now())
+                + String.format("-%06d", fileSequence++) + FILE_SUFFIX;
+        Path file = directory.resolve(name);
+        channel = FileChannel.open(
+                file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(maxFileSize, required));
+        try {
+            deleteOldFiles();
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to delete old Cerbos audit files: {}", ex.toString());
+        }
+    }
+
+    private void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        buffer.force();
+        channel.truncate(buffer.position());
+        channel.close();
+        channel = null;
+        buffer = null;
+    }
+
+    /**
+     * Drops the current file after a failed write, so the next write starts a new one. The abandoned file is not
+     * truncated and may end in zero bytes.
+     */
+    private void abandon() {
+        FileChannel failed = channel;
+        channel = null;
+        buffer = null;
+        if (failed != null) {
+            try {
+                failed.close();
+            } catch (IOException ex) {
+                LOGGER.debug("Failed to close abandoned Cerbos audit file", ex);
+            }
+        }
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        for (int i = 0; i < files.size() - Math.max(1, config.getMaxFiles()); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    static StringBuilder encode(Entry entry, StringBuilder out) {
+        out.append("{\"timestamp\":").append(entry.timestamp());
+        out.append(",\"site\":");
+        string(entry.site().tagValue(), out);
+        out.append(",\"principal\":");
+        string(entry.principal(), out);
+        out.append(",\"kind\":");
+        string(entry.kind(), out);
+        out.append(",\"resource\":");
+        string(entry.resourceId(), out);
+        out.append(",\"action\":");
+        string(entry.action(), out);
+        out.append(",\"allowed\":").append(entry.allowed());
+        out.append(",\"source\":");
+        string(entry.source(), out);
+        out.append(",\"latencyMicros\":").append(TimeUnit.NANOSECONDS.toMicros(entry.latencyNanos()));
+        return out.append("}\n");
+    }
+
+    private static void string(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    record Entry(
+            long timestamp,
+            CerbosCallSite site,
+            String principal,
+            String kind,
+            String resourceId,
+            String action,
+            boolean allowed,
+            String source,
+            long latencyNanos) {
+    }
+
+    /**
+     * Bounded multi-producer, single-consumer ring. Each slot carries a sequence number that tells producers whether
+     * it is free and the consumer whether it has been filled, so neither side takes a lock.
+     */
+    static final class Ring {
+
+        private final Entry[] slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        Ring(int requestedCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) * 2 - 1);
+            this.slots = new Entry[capacity];
+            this.sequences = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        int capacity() {
+            return slots.length;
+        }
+
+        boolean offer(Entry entry) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) position & mask;
+                long available = sequences.get(index) - position;
+                if (available == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots[index] = entry;
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (available < 0) {
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        /**
+         * Moves up to {@code into.length} entries into {@code into}. Only the writer thread may call this.
+         */
+        int drain(Entry[] into) {
+            long position = head;
+            int count = 0;
+            while (count < into.length) {
+                int index = (int) position & mask;
+                if (sequences.get(index) != position + 1) {
+                    break;
+                }
+                into[count++] = slots[index];
+                slots[index] = null;
+                sequences.set(index, position + slots.length);
+                position++;
+            }
+            head = position;
+            return count;
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package dev.cerbos.spring.demo;
+
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Actuator endpoint reporting the decision cache epoch. A write starts a new epoch, invalidating every cached
+ * decision, for example at the end of a policy deployment.
+ */
+@Endpoint(id = "cerbosepoch")
+public class CerbosEpochEndpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CerbosEpochEndpoint.class);
+
+    private final CerbosDecisionCache decisionCache;
+
+    public CerbosEpochEndpoint(CerbosDecisionCache decisionCache) {
+        this.decisionCache = decisionCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> epoch() {
+        return Map.of("epoch", decisionCache.epoch(), "cachedDecisions", decisionCache.size());
+    }
+
+    @WriteOperation
+    public Map<String, Object> advance() {
+        long epoch = decisionCache.advanceEpoch();
+        LOGGER.info("Started decision epoch {}: requested through the actuator", epoch);
+        return epoch();
+    }
+}
@@ -0,0 +1,420 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.sdk.CerbosBlockingClient;
+import dev.cerbos.sdk.builders.Principal;
+import dev.cerbos.sdk.builders.ResourceAction;
+import io.grpc.Channel;
+import io.grpc.ManagedChannel;
+import io.grpc.stub.AbstractStub;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Spreads PDP calls across several Cerbos replicas. Endpoints come from {@code cerbos.pdp.targets} and, with
+ * {@code resolve-dns}, from every address a target name resolves to. Each endpoint holds {@code cerbos.pdp.channels}
+ * {@link CerbosBlockingClient}s, each with its own gRPC channel and so its own HTTP/2 connection, used in turn, so that
+ * concurrent calls are not capped by one connection's concurrent-stream limit.
+ *
+ * <p>Endpoints are picked round-robin or by fewest outstanding calls. An endpoint that fails
+ * {@code failure-threshold} calls in a row, or an active health check, is ejected for {@code ejection-duration}, but
+ * never more than {@code max-ejection-percent} of the endpoints at once. When every endpoint is ejected, calls are
+ * spread over all of them anyway.
+ *
+ * <p>An endpoint dropped by a DNS refresh takes no new calls and has its channels shut down once its in-flight calls
+ * finish. {@link #destroy()} shuts down the channels of every endpoint.
+ */
+public class CerbosLoadBalancer implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CerbosLoadBalancer.class);
+
+    private final CerbosProperties.Balancing config;
+    private final List<String> targets;
+    private final int channels;
+    private final Function<String, CerbosBlockingClient> clientFactory;
+    private final Consumer<CerbosBlockingClient> clientCloser;
+    private final Function<String, List<String>> resolver;
+    private final LongSupplier ticker;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+    private volatile List<Endpoint> endpoints;
+
+    public CerbosLoadBalancer(CerbosProperties.Pdp pdp, Function<String, CerbosBlockingClient> clientFactory) {
+        this(pdp.resolveTargets(), pdp, clientFactory);
+    }
+
+    public CerbosLoadBalancer(
+            List<String> targets, CerbosProperties.Pdp pdp, Function<String, CerbosBlockingClient> clientFactory) {
+        this(targets, pdp.getBalancing(), pdp.getChannels(), clientFactory, CerbosLoadBalancer::shutdownChannel,
+                CerbosLoadBalancer::resolve, System::nanoTime);
+        schedule(this::checkHealth, config.getHealthCheckInterval().toNanos());
+        if (config.isResolveDns()) {
+            schedule(this::refresh, config.getDnsRefreshInterval().toNanos());
+        }
+    }
+
+    CerbosLoadBalancer(
+            List<String> targets,
+            CerbosProperties.Balancing config,
+            int channels,
+            Function<String, CerbosBlockingClient> clientFactory,
+            Consumer<CerbosBlockingClient> clientCloser,
+            Function<String, List<String>> resolver,
+            LongSupplier ticker) {
+        this.config = config;
+        this.targets = List.copyOf(targets);
+        this.channels = Math.max(1, channels);
+        this.clientFactory = clientFactory;
+        this.clientCloser = clientCloser;
+        this.resolver = resolver;
+        this.ticker = ticker;
+        this.endpoints = createEndpoints(expand(this.targets), Map.of());
+        this.scheduler = this.targets.size() > 1 || config.isResolveDns()
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "cerbos-pdp-balancer");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    /**
+     * A balancer over a single, already built client, with no health checking. The client is left open on
+     * {@link #destroy()}, since the balancer did not create it.
+     */
+    public static CerbosLoadBalancer single(CerbosBlockingClient client) {
+        return new CerbosLoadBalancer(
+                List.of("default"), new CerbosProperties.Balancing(), 1, target -> client, unused -> {
+                }, name -> List.of(), System::nanoTime);
+    }
+
+    /**
+     * Runs {@code call} against the selected endpoint, tracking its outcome for outlier ejection.
+     */
+    public <T> T call(Function<CerbosBlockingClient, T> call) {
+        Endpoint endpoint = acquire();
+        try {
+            T result = call.apply(endpoint.nextClient());
+            endpoint.consecutiveFailures.set(0);
+            return result;
+        } catch (RuntimeException ex) {
+            if (endpoint.consecutiveFailures.incrementAndGet() >= config.getFailureThreshold()) {
+                eject(endpoint);
+            }
+            throw ex;
+        } finally {
+            release(endpoint);
+        }
+    }
+
+    /**
+     * The endpoints currently in rotation, including ejected ones.
+     */
+    public List<String> endpoints() {
+        return endpoints.stream().map(Endpoint::target).toList();
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        endpoints.forEach(this::close);
+    }
+
+    /**
+     * Picks an endpoint and counts the call against it. An endpoint retired by a concurrent refresh is given back and
+     * another picked, so a retired endpoint's outstanding count only falls.
+     */
+    private Endpoint acquire() {
+        while (true) {
+            Endpoint endpoint = pick();
+            endpoint.outstanding.incrementAndGet();
+            if (!endpoint.retired) {
+                return endpoint;
+            }
+            release(endpoint);
+        }
+    }
+
+    private void release(Endpoint endpoint) {
+        if (endpoint.outstanding.decrementAndGet() == 0 && endpoint.retired) {
+            close(endpoint);
+        }
+    }
+
+    private void close(Endpoint endpoint) {
+        if (!endpoint.closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (CerbosBlockingClient client : endpoint.clients) {
+            try {
+                clientCloser.accept(client);
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Failed to shut down a channel to Cerbos PDP {}: {}", endpoint.target(), ex.toString());
+            }
+        }
+    }
+
+    Endpoint pick() {
+        List<Endpoint> current = endpoints;
+        int size = current.size();
+        if (size == 1) {
+            return current.get(0);
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        long now = ticker.getAsLong();
+        Endpoint chosen = null;
+        for (int i = 0; i < size; i++) {
+            Endpoint candidate = current.get((start + i) % size);
+            if (candidate.isEjected(now)) {
+                continue;
+            }
+            if (config.getPolicy() == CerbosProperties.BalancingPolicy.ROUND_ROBIN) {
+                return candidate;
+            }
+            if (chosen == null || candidate.outstanding.get() < chosen.outstanding.get()) {
+                chosen = candidate;
+            }
+        }
+        return chosen != null ? chosen : current.get(start);
+    }
+
+    /**
+     * Opens every channel of every endpoint by sending it a throwaway check, so that the first real calls do not pay
+     * for connection setup.
+     *
+     * @return the number of endpoints that answered
+     */
+    public int connect() {
+        int connected = 0;
+        for (Endpoint endpoint : endpoints) {
+            connected += probe(endpoint) ? 1 : 0;
+        }
+        return connected;
+    }
+
+    /**
+     * Probes every endpoint when there is more than one to choose from.
+     */
+    void checkHealth() {
+        List<Endpoint> current = endpoints;
+        if (current.size() < 2) {
+            return;
+        }
+        current.forEach(this::probe);
+    }
+
+    /**
+     * Sends a throwaway check over every channel of the endpoint. Any answer, allow or deny, counts as healthy and
+     * reinstates an ejected endpoint; a failure ejects it.
+     */
+    private boolean probe(Endpoint endpoint) {
+        try {
+            for (CerbosBlockingClient client : endpoint.clients) {
+                client.batch(Principal.newInstance("cerbos-health-check", "health-check"))
+                        .addResources(ResourceAction.newInstance("cerbos_health_check", "probe").withActions("probe"))
+                        .check();
+            }
+            endpoint.consecutiveFailures.set(0);
+            endpoint.ejectedUntil = 0;
+            return true;
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Cerbos PDP {} failed its health check: {}", endpoint.target(), ex.toString());
+            eject(endpoint);
+            return false;
+        }
+    }
+
+    /**
+     * Re-resolves the configured names, keeping the clients of endpoints whose address did not change. If any name
+     * fails to resolve, the current endpoints are left as they are. Endpoints no longer resolved are retired and closed
+     * once their in-flight calls finish.
+     */
+    void refresh() {
+        List<String> resolved = new ArrayList<>();
+        for (String name : targets) {
+            List<String> addresses = resolver.apply(name);
+            if (addresses.isEmpty()) {
+                return;
+            }
+            resolved.addAll(addresses);
+        }
+        resolved = resolved.stream().distinct().toList();
+        List<Endpoint> current = endpoints;
+        if (resolved.equals(current.stream().map(Endpoint::target).toList())) {
+            return;
+        }
+        Map<String, Endpoint> existing = new LinkedHashMap<>();
+        current.forEach(endpoint -> existing.put(endpoint.target(), endpoint));
+        endpoints = createEndpoints(resolved, existing);
+        LOGGER.info("Cerbos PDP endpoints changed to {}", resolved);
+        for (String target : resolved) {
+            existing.remove(target);
+        }
+        for (Endpoint removed : existing.values()) {
+            removed.retired = true;
+            if (removed.outstanding.get() == 0) {
+                close(removed);
+            }
+        }
+    }
+
+    private void eject(Endpoint endpoint) {
+        List<Endpoint> current = endpoints;
+        long now = ticker.getAsLong();
+        if (endpoint.isEjected(now)) {
+            return;
+        }
+        long ejected = current.stream().filter(candidate -> candidate.isEjected(now)).count();
+        if ((ejected + 1) * 100 > (long) current.size() * config.getMaxEjectionPercent()) {
+            return;
+        }
+        endpoint.ejectedUntil = now + Math.max(1, config.getEjectionDuration().toNanos());
+        LOGGER.warn("Ejected Cerbos PDP {} for {}", endpoint.target(), config.getEjectionDuration());
+    }
+
+    private List<Endpoint> createEndpoints(List<String> resolved, Map<String, Endpoint> existing) {
+        List<Endpoint> created = new ArrayList<>(resolved.size());
+        for (String target : resolved) {
+            Endpoint endpoint = existing.get(target);
+            if (endpoint == null) {
+                CerbosBlockingClient[] clients = new CerbosBlockingClient[channels];
+                for (int i = 0; i < channels; i++) {
+                    clients[i] = clientFactory.apply(target);
+                }
+                endpoint = new Endpoint(target, clients);
+            }
+            created.add(endpoint);
+        }
+        return List.copyOf(created);
+    }
+
+    private List<String> expand(List<String> names) {
+        if (!config.isResolveDns()) {
+            return names;
+        }
+        List<String> resolved = new ArrayList<>();
+        for (String name : names) {
+            List<String> addresses = resolver.apply(name);
+            resolved.addAll(addresses.isEmpty() ? List.of(name) : addresses);
+        }
+        return resolved.stream().distinct().toList();
+    }
+
+    private void schedule(Runnable task, long intervalNanos) {
+        if (scheduler == null || intervalNanos <= 0) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Cerbos PDP balancer maintenance failed", ex);
+            }
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Shuts down the gRPC channel behind {@code client}, letting in-flight calls finish. The SDK builds the channel
+     * itself and does not expose it, so it is looked up among the client's fields, directly or through a gRPC stub.
+     */
+    static void shutdownChannel(CerbosBlockingClient client) {
+        for (Class<?> type = client.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Object value;
+                try {
+                    field.setAccessible(true);
+                    value = field.get(client);
+                } catch (RuntimeException | IllegalAccessException ex) {
+                    continue;
+                }
+                Channel channel = value instanceof AbstractStub<?> stub ? stub.getChannel()
+                        : value instanceof Channel direct ? direct
+                        : null;
+                if (channel instanceof ManagedChannel managed) {
+                    managed.shutdown();
+                    return;
+                }
+            }
+        }
+        LOGGER.debug("Found no gRPC channel to shut down in {}", client.getClass().getName());
+    }
+
+    /**
+     * Resolves {@code host:port} into one {@code address:port} target per address, or nothing when the name cannot be
+     * resolved or is not a plain host and port.
+     */
+    static List<String> resolve(String target) {
+        int separator = target.lastIndexOf(':');
+        if (separator <= 0 || target.contains("/")) {
+            return List.of();
+        }
+        String host = target.substring(0, separator);
+        String port = target.substring(separator + 1);
+        try {
+            List<String> resolved = new ArrayList<>();
+            for (InetAddress address : InetAddress.getAllByName(host)) {
+                String literal = address.getHostAddress();
+                resolved.add((address instanceof Inet6Address ? "[" + literal + "]" : literal) + ":" + port);
+            }
+            return resolved;
+        } catch (UnknownHostException ex) {
+            LOGGER.warn("Failed to resolve Cerbos PDP {}: {}", target, ex.getMessage());
+            return List.of();
+        }
+    }
+
+    static final class Endpoint {
+
+        private final String target;
+        private final CerbosBlockingClient[] clients;
+        private final AtomicInteger nextClient = new AtomicInteger();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long ejectedUntil;
+        private volatile boolean retired;
+
+        Endpoint(String target, CerbosBlockingClient[] clients) {
+            this.target = target;
+            this.clients = clients;
+        }
+
+        CerbosBlockingClient nextClient() {
+            if (clients.length == 1) {
+                return clients[0];
+            }
+            return clients[Math.floorMod(nextClient.getAndIncrement(), clients.length)];
+        }
+
+        String target() {
+            return target;
+        }
+
+        boolean isEjected(long now) {
+            long until = ejectedUntil;
+            return until != 0 && now - until < 0;
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package dev.cerbos.spring.demo;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -10,6 +17,9 @@ import org.springframework.util.StringUtils;
 public class CerbosMethodAuthorizer {
 
     private static final String DOCUMENT_KIND = "document";
+    private static final String RESOURCE_ID_VARIABLE = "request.resource.id";
+    private static final String RESOURCE_ATTR_PREFIX = "request.resource.attr.";
+    private static final String NEW_RESOURCE_PREFIX = "_NEW_#";
 
     private final CerbosAuthorizationService authorizationService;
 
@@ -19,21 +29,119 @@ public class CerbosMethodAuthorizer {
 
     public boolean canViewDocuments(Authentication authentication) {
         return authorizationService.checkPermission(
-                authentication, DOCUMENT_KIND, "_ANY_", "read", Map.of(), Map.of());
+                CerbosCallSite.PRE_AUTHORIZE, authentication, DOCUMENT_KIND, "_ANY_", "read", Map.of(), Map.of());
+    }
+
+    public CompletableFuture<Boolean> canViewDocumentsAsync(Authentication authentication) {
+        return authorizationService.checkPermissionAsync(
+                CerbosCallSite.PRE_AUTHORIZE, authentication, DOCUMENT_KIND, "_ANY_", "read", Map.of(), Map.of());
     }
 
     public boolean canAccessDocument(Authentication authentication, Document document, String action) {
         if (document == null) {
             return false;
         }
-        Map<String, Object> resourceAttributes = new LinkedHashMap<>();
-        resourceAttributes.put("owner", document.owner());
-        resourceAttributes.put("content", document.content());
         return authorizationService.checkPermission(
-                authentication, DOCUMENT_KIND, document.id(), action, resourceAttributes, Map.of());
+                CerbosCallSite.POST_AUTHORIZE,
+                authentication,
+                DOCUMENT_KIND,
+                document.id(),
+                action,
+                documentAttributes(document),
+                Map.of());
+    }
+
+    public CompletableFuture<Boolean> canAccessDocumentAsync(
+            Authentication authentication, Document document, String action) {
+        if (document == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return authorizationService.checkPermissionAsync(
+                CerbosCallSite.POST_AUTHORIZE,
+                authentication,
+                DOCUMENT_KIND,
+                document.id(),
+                action,
+                documentAttributes(document),
+                Map.of());
+    }
+
+    /**
+     * Returns the documents the caller may perform {@code action} on, authorized with batched Cerbos calls rather than
+     * one call per document.
+     */
+    public List<Document> filterAccessibleDocuments(
+            Authentication authentication, List<Document> documents, String action) {
+        List<CerbosResource> resources = documents.stream()
+                .map(document -> new CerbosResource(DOCUMENT_KIND, document.id(), documentAttributes(document)))
+                .toList();
+        Map<String, Map<String, Boolean>> decisions =
+                authorizationService.checkPermissions(authentication, resources, Set.of(action));
+        return documents.stream()
+                .filter(document -> Boolean.TRUE.equals(decisions.get(document.id()).get(action)))
+                .toList();
+    }
+
+    /**
+     * Builds a filter over documents for {@code action} from a single Cerbos query plan, or returns {@code null} when
+     * the plan cannot be compiled, in which case callers check documents with {@link #filterAccessibleDocuments}.
+     */
+    public Predicate<Document> documentPlanFilter(Authentication authentication, String action) {
+        return authorizationService.planResourceFilter(
+                authentication, DOCUMENT_KIND, action, CerbosMethodAuthorizer::documentVariable);
     }
 
     public boolean canCreateDocument(Authentication authentication, DocumentRequest request) {
+        String resourceId = StringUtils.hasText(request.getDocumentId()) ? request.getDocumentId() : "_NEW_";
+        return authorizationService.checkPermission(
+                CerbosCallSite.PRE_AUTHORIZE,
+                authentication,
+                DOCUMENT_KIND,
+                resourceId,
+                "create",
+                createAttributes(request),
+                creatorAttributes(authentication));
+    }
+
+    /**
+     * Bulk variant of {@link #canCreateDocument}, answered with one batched Cerbos check. A request without a document
+     * id is checked as {@code _NEW_#<index>}, its position in {@code requests}, since a bulk call cannot hold the same
+     * resource id twice; the suffix is extended with further {@code #} when a requested id already takes it. Requested
+     * ids must be distinct.
+     *
+     * @return one decision per request, in order
+     */
+    public List<Boolean> canCreateDocuments(Authentication authentication, List<DocumentRequest> requests) {
+        Set<String> requestedIds = new HashSet<>();
+        for (DocumentRequest request : requests) {
+            if (StringUtils.hasText(request.getDocumentId())) {
+                requestedIds.add(request.getDocumentId());
+            }
+        }
+        List<String> resourceIds = new ArrayList<>(requests.size());
+        List<CerbosResource> resources = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            DocumentRequest request = requests.get(i);
+            String resourceId = request.getDocumentId();
+            if (!StringUtils.hasText(resourceId)) {
+                resourceId = NEW_RESOURCE_PREFIX + i;
+                while (requestedIds.contains(resourceId)) {
+                    resourceId += "#";
+                }
+            }
+            resourceIds.add(resourceId);
+            resources.add(new CerbosResource(DOCUMENT_KIND, resourceId, createAttributes(request)));
+        }
+        Map<String, Map<String, Boolean>> decisions = authorizationService.checkPermissions(
+                authentication, resources, Set.of("create"), creatorAttributes(authentication));
+        List<Boolean> allowed = new ArrayList<>(requests.size());
+        for (String resourceId : resourceIds) {
+            allowed.add(Boolean.TRUE.equals(decisions.get(resourceId).get("create")));
+        }
+        return allowed;
+    }
+
+    private static Map<String, Object> createAttributes(DocumentRequest request) {
         Map<String, Object> resourceAttributes = new LinkedHashMap<>();
         if (request.getContent() != null && !request.getContent().isEmpty()) {
             resourceAttributes.put("content", request.getContent());
@@ -41,9 +149,45 @@ public class CerbosMethodAuthorizer {
         if (StringUtils.hasText(request.getDocumentId())) {
             resourceAttributes.put("requestedId", request.getDocumentId());
         }
-        String resourceId = StringUtils.hasText(request.getDocumentId()) ? request.getDocumentId() : "_NEW_";
-        Map<String, Object> principalAttributes = Map.of("requestedOwner", authentication != null ? authentication.getName() : "system");
-        return authorizationService.checkPermission(
-                authentication, DOCUMENT_KIND, resourceId, "create", resourceAttributes, principalAttributes);
+        return resourceAttributes;
+    }
+
+    private static Map<String, Object> creatorAttributes(Authentication authentication) {
+        return Map.of("requestedOwner", authentication != null ? authentication.getName() : "system");
+    }
+
+    private Map<String, Object> documentAttributes(Document document) {
+        Map<String, Object> resourceAttributes = new LinkedHashMap<>();
+        resourceAttributes.put("owner", document.owner());
+        resourceAttributes.put("content", document.content());
+        return resourceAttributes;
+    }
+
+    /**
+     * Maps a plan variable to an accessor on documents. Variables documents do not carry are rejected rather than read
+     * as {@code null}, which a negated condition would turn into an allow.
+     */
+    static Function<Document, Object> documentVariable(String variable) {
+        if (RESOURCE_ID_VARIABLE.equals(variable)) {
+            return Document::id;
+        }
+        String[] path = variable.startsWith(RESOURCE_ATTR_PREFIX)
+                ? variable.substring(RESOURCE_ATTR_PREFIX.length()).split("\\.")
+                : new String[] {""};
+        Function<Document, Object> root = switch (path[0]) {
+            case "owner" -> Document::owner;
+            case "content" -> Document::content;
+            default -> throw new UnsupportedOperationException("Unsupported plan variable: " + variable);
+        };
+        if (path.length == 1) {
+            return root;
+        }
+        return document -> {
+            Object value = root.apply(document);
+            for (int i = 1; i < path.length && value != null; i++) {
+                value = value instanceof Map<?, ?> map ? map.get(path[i]) : null;
+            }
+            return value;
+        };
     }
 }
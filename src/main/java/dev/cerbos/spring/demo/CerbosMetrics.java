@@ -0,0 +1,163 @@
+package dev.cerbos.spring.demo;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation for Cerbos checks: PDP call latency, decisions, failures, in-flight calls and payload
+ * sizes. Meters are tagged by call site, resource kind and action, never by resource or principal id.
+ */
+public class CerbosMetrics {
+
+    static final String CALLS = "cerbos.authz.pdp.calls";
+    static final String DECISIONS = "cerbos.authz.decisions";
+    static final String ERRORS = "cerbos.authz.errors";
+    static final String IN_FLIGHT = "cerbos.authz.pdp.inflight";
+    static final String RESOURCES = "cerbos.authz.payload.resources";
+    static final String ATTRIBUTES = "cerbos.authz.payload.attributes";
+    static final String AUDIT_WRITTEN = "cerbos.authz.audit.written";
+    static final String AUDIT_DROPPED = "cerbos.authz.audit.dropped";
+    static final String AUDIT_PENDING = "cerbos.authz.audit.pending";
+    static final String AUDIT_FAILURES = "cerbos.authz.audit.failures";
+    static final String AUDIT_HEALTHY = "cerbos.authz.audit.healthy";
+    static final String CACHE_EPOCH = "cerbos.authz.cache.epoch";
+
+    static final String SOURCE_PDP = "pdp";
+    static final String SOURCE_CACHE = "cache";
+    static final String SOURCE_STALE = "stale";
+    static final String SOURCE_LOCAL = "local";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<MeterKey, Timer> calls = new ConcurrentHashMap<>();
+    private final Map<DecisionMeterKey, Counter> decisions = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> errors = new ConcurrentHashMap<>();
+    private final DistributionSummary resourcesPerCall;
+    private final DistributionSummary attributesPerCall;
+
+    public CerbosMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("PDP calls currently awaiting a response")
+                .register(registry);
+        this.resourcesPerCall = DistributionSummary.builder(RESOURCES)
+                .description("Resources sent per PDP call")
+                .baseUnit("resources")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.attributesPerCall = DistributionSummary.builder(ATTRIBUTES)
+                .description("Top-level principal and resource attributes sent per PDP call")
+                .baseUnit("attributes")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Instrumentation that records nothing, for when no {@link MeterRegistry} is available.
+     */
+    public static CerbosMetrics noop() {
+        return new CerbosMetrics(new CompositeMeterRegistry());
+    }
+
+    /**
+     * Exposes the decision cache's current epoch.
+     */
+    void bindDecisionCache(CerbosDecisionCache decisionCache) {
+        Gauge.builder(CACHE_EPOCH, decisionCache, CerbosDecisionCache::epoch)
+                .description("Current decision cache epoch")
+                .register(registry);
+    }
+
+    /**
+     * Exposes the audit log's written, dropped and buffered decision counts.
+     */
+    void bindDecisionLog(CerbosDecisionLog decisionLog) {
+        FunctionCounter.builder(AUDIT_WRITTEN, decisionLog, CerbosDecisionLog::written)
+                .description("Decisions written to the audit log")
+                .register(registry);
+        FunctionCounter.builder(AUDIT_DROPPED, decisionLog, CerbosDecisionLog::dropped)
+                .description("Decisions dropped because the audit buffer was full")
+                .register(registry);
+        Gauge.builder(AUDIT_PENDING, decisionLog, CerbosDecisionLog::pending)
+                .description("Decisions waiting in the audit buffer")
+                .register(registry);
+        FunctionCounter.builder(AUDIT_FAILURES, decisionLog, CerbosDecisionLog::failures)
+                .description("Failed attempts to write an audit file")
+                .register(registry);
+        Gauge.builder(AUDIT_HEALTHY, decisionLog, log -> log.healthy() ? 1 : 0)
+                .description("1 while the audit log writer is writing successfully, 0 while it is retrying")
+                .register(registry);
+    }
+
+    /**
+     * Marks the start of a PDP call and records its payload size.
+     *
+     * @return the start time to pass to {@link #callCompleted} or {@link #callFailed}
+     */
+    long callStarted(int resources, int attributes) {
+        inFlight.incrementAndGet();
+        resourcesPerCall.record(resources);
+        attributesPerCall.record(attributes);
+        return System.nanoTime();
+    }
+
+    void callCompleted(long started, CerbosCallSite site, String kind, String action, String outcome) {
+        inFlight.decrementAndGet();
+        timer(new MeterKey(site, kind, action, outcome)).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    void callFailed(long started, CerbosCallSite site, String kind, String action, Throwable failure) {
+        inFlight.decrementAndGet();
+        String outcome = failure instanceof CerbosUnavailableException
+                ? "circuit_open"
+                : Status.fromThrowable(failure).getCode() == Status.Code.DEADLINE_EXCEEDED ? "timeout" : "error";
+        MeterKey key = new MeterKey(site, kind, action, outcome);
+        timer(key).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        errors.computeIfAbsent(key, this::errorCounter).increment();
+    }
+
+    void decision(CerbosCallSite site, String kind, String action, boolean allowed, String source) {
+        decisions.computeIfAbsent(new DecisionMeterKey(site, kind, action, allowed, source), this::decisionCounter)
+                .increment();
+    }
+
+    private Timer timer(MeterKey key) {
+        return calls.computeIfAbsent(key, k -> Timer.builder(CALLS)
+                .description("Latency of Cerbos PDP calls")
+                .tags("site", k.site().tagValue(), "kind", k.kind(), "action", k.action(), "outcome", k.outcome())
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private Counter errorCounter(MeterKey key) {
+        return Counter.builder(ERRORS)
+                .description("Failed Cerbos PDP calls")
+                .tags("site", key.site().tagValue(), "kind", key.kind(), "action", key.action(), "type", key.outcome())
+                .register(registry);
+    }
+
+    private Counter decisionCounter(DecisionMeterKey key) {
+        return Counter.builder(DECISIONS)
+                .description("Authorization decisions by outcome and where they came from")
+                .tags("site", key.site().tagValue(), "kind", key.kind(), "action", key.action(),
+                        "outcome", key.allowed() ? "allow" : "deny", "source", key.source())
+                .register(registry);
+    }
+
+    private record MeterKey(CerbosCallSite site, String kind, String action, String outcome) {
+    }
+
+    private record DecisionMeterKey(
+            CerbosCallSite site, String kind, String action, boolean allowed, String source) {
+    }
+}
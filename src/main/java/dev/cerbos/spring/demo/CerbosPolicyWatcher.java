@@ -0,0 +1,188 @@
+package dev.cerbos.spring.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.StringUtils;
+
+/**
+ * Starts a new decision cache epoch when Cerbos policies change: when files under {@code watch-directory} change, and
+ * when the contents of the {@code version-marker} resource differ from the previous poll. A burst of file events is
+ * left to settle for {@code quiet-period}, so rewriting a whole policy bundle advances the epoch once. When local
+ * policy evaluation is enabled, the {@link LocalPolicyEngine} is reloaded before the new epoch starts.
+ */
+public class CerbosPolicyWatcher implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CerbosPolicyWatcher.class);
+    private static final int MAX_MARKER_BYTES = 64 * 1024;
+
+    private final CerbosDecisionCache decisionCache;
+    private final LocalPolicyEngine localPolicies;
+    private final Duration quietPeriod;
+    private final WatchService watchService;
+    private final Resource versionMarker;
+    private final ScheduledExecutorService poller;
+    private volatile String version;
+
+    public CerbosPolicyWatcher(
+            CerbosProperties.Invalidation config, CerbosDecisionCache decisionCache, ResourceLoader resourceLoader) {
+        this(config, decisionCache, null, resourceLoader);
+    }
+
+    public CerbosPolicyWatcher(
+            CerbosProperties.Invalidation config,
+            CerbosDecisionCache decisionCache,
+            LocalPolicyEngine localPolicies,
+            ResourceLoader resourceLoader) {
+        this.decisionCache = decisionCache;
+        this.localPolicies = localPolicies;
+        this.quietPeriod = config.getQuietPeriod();
+
+        if (StringUtils.hasText(config.getWatchDirectory())) {
+            Path directory = Path.of(config.getWatchDirectory());
+            if (!Files.isDirectory(directory)) {
+                throw new IllegalArgumentException(
+                        "cerbos.cache.invalidation.watch-directory is not a directory: " + directory);
+            }
+            try {
+                this.watchService = directory.getFileSystem().newWatchService();
+                register(directory);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to watch policy directory " + directory, ex);
+            }
+            Thread watcher = new Thread(this::watch, "cerbos-policy-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } else {
+            this.watchService = null;
+        }
+
+        if (StringUtils.hasText(config.getVersionMarker())) {
+            this.versionMarker = resourceLoader.getResource(config.getVersionMarker());
+            this.version = readVersion();
+            long interval = config.getPollInterval().toNanos();
+            if (interval > 0) {
+                this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "cerbos-policy-version-poller");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.NANOSECONDS);
+            } else {
+                this.poller = null;
+            }
+        } else {
+            this.versionMarker = null;
+            this.poller = null;
+        }
+    }
+
+    /**
+     * Reads the version marker and advances the epoch if its contents changed. An unreadable marker is logged and
+     * otherwise ignored until it can be read again.
+     */
+    void poll() {
+        String current = readVersion();
+        if (current == null || current.equals(version)) {
+            return;
+        }
+        version = current;
+        advance("policy version changed to " + abbreviate(current));
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                drain(watchService.take());
+                WatchKey next;
+                while ((next = watchService.poll(quietPeriod.toNanos(), TimeUnit.NANOSECONDS)) != null) {
+                    drain(next);
+                }
+                advance("policy directory changed");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Consumes the events of {@code key}, watching any directory created under the policy directory as well.
+     */
+    private void drain(WatchKey key) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                Path created = directory.resolve((Path) event.context());
+                if (Files.isDirectory(created)) {
+                    try {
+                        register(created);
+                    } catch (IOException ex) {
+                        LOGGER.warn("Failed to watch policy directory {}: {}", created, ex.toString());
+                    }
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void register(Path root) throws IOException {
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Path directory : directories.filter(Files::isDirectory).toList()) {
+                directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private String readVersion() {
+        try (InputStream input = versionMarker.getInputStream()) {
+            return new String(input.readNBytes(MAX_MARKER_BYTES), StandardCharsets.UTF_8).strip();
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to read policy version marker {}: {}", versionMarker, ex.toString());
+            return null;
+        }
+    }
+
+    private void advance(String reason) {
+        if (localPolicies != null) {
+            localPolicies.reload();
+        }
+        long epoch = decisionCache.advanceEpoch();
+        LOGGER.info("Started decision epoch {}: {}", epoch, reason);
+    }
+
+    private static String abbreviate(String value) {
+        return value.length() <= 64 ? value : value.substring(0, 64) + "...";
+    }
+}
@@ -1,17 +1,29 @@
 package dev.cerbos.spring.demo;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
 @ConfigurationProperties(prefix = "cerbos")
 public class CerbosProperties {
 
     private final Pdp pdp = new Pdp();
     private final Http http = new Http();
+    private final Cache cache = new Cache();
+    private final Batching batching = new Batching();
+    private final Async async = new Async();
+    private final Resilience resilience = new Resilience();
+    private final Warmup warmup = new Warmup();
+    private final Local local = new Local();
+    private final Audit audit = new Audit();
 
     public Pdp getPdp() {
         return pdp;
@@ -21,12 +33,45 @@ public class CerbosProperties {
         return http;
     }
 
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Batching getBatching() {
+        return batching;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public Warmup getWarmup() {
+        return warmup;
+    }
+
+    public Local getLocal() {
+        return local;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
     public static class Pdp {
         private String target = "localhost:3593";
+        private List<String> targets = new ArrayList<>();
         private boolean plaintext = true;
         private boolean insecure;
         private Duration timeout = Duration.ofSeconds(1);
         private String playgroundInstance;
+        private int maxResourcesPerRequest = 50;
+        private int channels = 1;
+        private StubPdp stub = new StubPdp();
+        private Balancing balancing = new Balancing();
 
         public String getTarget() {
             return target;
@@ -36,6 +81,21 @@ public class CerbosProperties {
             this.target = target;
         }
 
+        public List<String> getTargets() {
+            return targets;
+        }
+
+        public void setTargets(List<String> targets) {
+            this.targets = targets;
+        }
+
+        /**
+         * Returns {@code targets} when set, otherwise the single {@code target}.
+         */
+        public List<String> resolveTargets() {
+            return targets != null && !targets.isEmpty() ? targets : List.of(target);
+        }
+
         public boolean isPlaintext() {
             return plaintext;
         }
@@ -67,11 +127,221 @@ public class CerbosProperties {
         public void setPlaygroundInstance(String playgroundInstance) {
             this.playgroundInstance = playgroundInstance;
         }
+
+        public int getMaxResourcesPerRequest() {
+            return maxResourcesPerRequest;
+        }
+
+        public void setMaxResourcesPerRequest(int maxResourcesPerRequest) {
+            this.maxResourcesPerRequest = maxResourcesPerRequest;
+        }
+
+        public int getChannels() {
+            return channels;
+        }
+
+        public void setChannels(int channels) {
+            this.channels = channels;
+        }
+
+        public StubPdp getStub() {
+            return stub;
+        }
+
+        public void setStub(StubPdp stub) {
+            this.stub = stub != null ? stub : new StubPdp();
+        }
+
+        public Balancing getBalancing() {
+            return balancing;
+        }
+
+        public void setBalancing(Balancing balancing) {
+            this.balancing = balancing != null ? balancing : new Balancing();
+        }
+    }
+
+    public enum BalancingPolicy {
+        ROUND_ROBIN, LEAST_OUTSTANDING
+    }
+
+    /**
+     * How checks are spread across PDP replicas when {@code targets} lists several endpoints or {@code resolve-dns}
+     * expands a name into several addresses.
+     */
+    public static class Balancing {
+        private BalancingPolicy policy = BalancingPolicy.ROUND_ROBIN;
+        private boolean resolveDns;
+        private Duration dnsRefreshInterval = Duration.ofSeconds(30);
+        private Duration healthCheckInterval = Duration.ofSeconds(10);
+        private int failureThreshold = 5;
+        private Duration ejectionDuration = Duration.ofSeconds(30);
+        private int maxEjectionPercent = 50;
+
+        public BalancingPolicy getPolicy() {
+            return policy;
+        }
+
+        public void setPolicy(BalancingPolicy policy) {
+            this.policy = policy;
+        }
+
+        public boolean isResolveDns() {
+            return resolveDns;
+        }
+
+        public void setResolveDns(boolean resolveDns) {
+            this.resolveDns = resolveDns;
+        }
+
+        public Duration getDnsRefreshInterval() {
+            return dnsRefreshInterval;
+        }
+
+        public void setDnsRefreshInterval(Duration dnsRefreshInterval) {
+            this.dnsRefreshInterval = dnsRefreshInterval;
+        }
+
+        public Duration getHealthCheckInterval() {
+            return healthCheckInterval;
+        }
+
+        public void setHealthCheckInterval(Duration healthCheckInterval) {
+            this.healthCheckInterval = healthCheckInterval;
+        }
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Duration getEjectionDuration() {
+            return ejectionDuration;
+        }
+
+        public void setEjectionDuration(Duration ejectionDuration) {
+            this.ejectionDuration = ejectionDuration;
+        }
+
+        public int getMaxEjectionPercent() {
+            return maxEjectionPercent;
+        }
+
+        public void setMaxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+        }
+    }
+
+    /**
+     * A built-in PDP for load and latency testing without a Cerbos deployment. When enabled, the client talks to a
+     * local gRPC server that answers from {@code rules} after the configured latency, jitter and error rate.
+     */
+    public static class StubPdp {
+        private boolean enabled;
+        private Duration latency = Duration.ZERO;
+        private Duration jitter = Duration.ZERO;
+        private double errorRate;
+        private int maxConcurrentStreams;
+        private List<StubRule> rules = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Duration latency) {
+            this.latency = latency != null ? latency : Duration.ZERO;
+        }
+
+        public Duration getJitter() {
+            return jitter;
+        }
+
+        public void setJitter(Duration jitter) {
+            this.jitter = jitter != null ? jitter : Duration.ZERO;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public List<StubRule> getRules() {
+            return rules;
+        }
+
+        public void setRules(List<StubRule> rules) {
+            this.rules = rules != null ? rules : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Allows {@code actions} on {@code resourceKind} for principals holding any of {@code roles}; {@code *} matches
+     * anything.
+     */
+    public static class StubRule {
+        private String resourceKind = "*";
+        private List<String> roles = new ArrayList<>(List.of("*"));
+        private List<String> actions = new ArrayList<>(List.of("*"));
+
+        public String getResourceKind() {
+            return resourceKind;
+        }
+
+        public void setResourceKind(String resourceKind) {
+            this.resourceKind = resourceKind;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        public void setRoles(List<String> roles) {
+            this.roles = roles != null ? roles : new ArrayList<>();
+        }
+
+        public List<String> getActions() {
+            return actions;
+        }
+
+        public void setActions(List<String> actions) {
+            this.actions = actions != null ? actions : new ArrayList<>();
+        }
     }
 
     public static class Http {
+        private static final Set<String> STANDARD_METHODS =
+                Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE");
+
         private String resourceKind = "http_request";
         private Map<String, String> methodActions = defaultActions();
+        private List<Prefetch> prefetch = new ArrayList<>();
+        private List<Route> routes = new ArrayList<>();
+        private List<String> headers = new ArrayList<>(List.of("*"));
+        private boolean includeQuery = true;
+        private boolean includeRemoteAddr = true;
+        private boolean includeSegments = true;
 
         public String getResourceKind() {
             return resourceKind;
@@ -93,11 +363,72 @@ public class CerbosProperties {
             }
         }
 
+        public List<Prefetch> getPrefetch() {
+            return prefetch;
+        }
+
+        public void setPrefetch(List<Prefetch> prefetch) {
+            this.prefetch = prefetch != null ? prefetch : new ArrayList<>();
+        }
+
+        public List<Route> getRoutes() {
+            return routes;
+        }
+
+        public void setRoutes(List<Route> routes) {
+            this.routes = routes != null ? routes : new ArrayList<>();
+        }
+
+        /**
+         * Request headers sent as {@code headers}, matched case-insensitively; {@code *} sends every header and an
+         * empty list omits the attribute.
+         */
+        public List<String> getHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(List<String> headers) {
+            this.headers = headers != null ? headers : new ArrayList<>();
+        }
+
+        public boolean isIncludeQuery() {
+            return includeQuery;
+        }
+
+        public void setIncludeQuery(boolean includeQuery) {
+            this.includeQuery = includeQuery;
+        }
+
+        public boolean isIncludeRemoteAddr() {
+            return includeRemoteAddr;
+        }
+
+        public void setIncludeRemoteAddr(boolean includeRemoteAddr) {
+            this.includeRemoteAddr = includeRemoteAddr;
+        }
+
+        public boolean isIncludeSegments() {
+            return includeSegments;
+        }
+
+        public void setIncludeSegments(boolean includeSegments) {
+            this.includeSegments = includeSegments;
+        }
+
+        /**
+         * Maps an HTTP method to a Cerbos action. Unmapped standard methods become their lower-case name and anything
+         * else {@code other}, so arbitrary method tokens from clients cannot create new actions or meters.
+         */
         public String resolveAction(String method) {
             if (!StringUtils.hasText(method)) {
                 return "unknown";
             }
-            return methodActions.getOrDefault(method.toUpperCase(Locale.ENGLISH), method.toLowerCase(Locale.ENGLISH));
+            String normalized = method.toUpperCase(Locale.ENGLISH);
+            String action = methodActions.get(normalized);
+            if (action != null) {
+                return action;
+            }
+            return STANDARD_METHODS.contains(normalized) ? normalized.toLowerCase(Locale.ENGLISH) : "other";
         }
 
         private static Map<String, String> defaultActions() {
@@ -110,4 +441,638 @@ public class CerbosProperties {
             return defaults;
         }
     }
+
+    /**
+     * A check whose inputs are fully known from the request line, evaluated in the same PDP call as the HTTP check for
+     * matching requests so later method-security checks can reuse the decision.
+     */
+    public static class Prefetch {
+        private String method;
+        private String path;
+        private String resourceKind;
+        private String resourceId;
+        private String action;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getResourceKind() {
+            return resourceKind;
+        }
+
+        public void setResourceKind(String resourceKind) {
+            this.resourceKind = resourceKind;
+        }
+
+        public String getResourceId() {
+            return resourceId;
+        }
+
+        public void setResourceId(String resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public void setAction(String action) {
+            this.action = action;
+        }
+
+        public boolean matches(String requestMethod, String requestPath, PathMatcher pathMatcher) {
+            if (StringUtils.hasText(method) && !method.equalsIgnoreCase(requestMethod)) {
+                return false;
+            }
+            return path == null || (requestPath != null && pathMatcher.match(path, requestPath));
+        }
+    }
+
+    /**
+     * Maps a route template such as {@code /documents/{id}} to the Cerbos resource checked for matching requests.
+     * {@code resourceId} may reference the template's variables and defaults to the request path; {@code action}
+     * defaults to the HTTP method mapping.
+     */
+    public static class Route {
+        private String method;
+        private String path;
+        private String resourceKind;
+        private String resourceId;
+        private String action;
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getResourceKind() {
+            return resourceKind;
+        }
+
+        public void setResourceKind(String resourceKind) {
+            this.resourceKind = resourceKind;
+        }
+
+        public String getResourceId() {
+            return resourceId;
+        }
+
+        public void setResourceId(String resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public void setAction(String action) {
+            this.action = action;
+        }
+    }
+
+    public static class Cache {
+        private boolean enabled;
+        private Duration ttl = Duration.ofSeconds(30);
+        private Duration allowTtl;
+        private Duration denyTtl;
+        private int maxEntries = 10_000;
+        private final Invalidation invalidation = new Invalidation();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getAllowTtl() {
+            return allowTtl;
+        }
+
+        public void setAllowTtl(Duration allowTtl) {
+            this.allowTtl = allowTtl;
+        }
+
+        public Duration getDenyTtl() {
+            return denyTtl;
+        }
+
+        public void setDenyTtl(Duration denyTtl) {
+            this.denyTtl = denyTtl;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration resolveAllowTtl() {
+            return allowTtl != null ? allowTtl : ttl;
+        }
+
+        public Duration resolveDenyTtl() {
+            return denyTtl != null ? denyTtl : ttl;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+    }
+
+    /**
+     * Triggers for a new decision cache epoch besides the {@code cerbosepoch} actuator endpoint: changes under
+     * {@code watch-directory}, settled for {@code quiet-period}, and changes to the contents of the
+     * {@code version-marker} resource, read every {@code poll-interval}.
+     */
+    public static class Invalidation {
+        private String watchDirectory;
+        private Duration quietPeriod = Duration.ofMillis(500);
+        private String versionMarker;
+        private Duration pollInterval = Duration.ofSeconds(30);
+
+        public String getWatchDirectory() {
+            return watchDirectory;
+        }
+
+        public void setWatchDirectory(String watchDirectory) {
+            this.watchDirectory = watchDirectory;
+        }
+
+        public Duration getQuietPeriod() {
+            return quietPeriod;
+        }
+
+        public void setQuietPeriod(Duration quietPeriod) {
+            this.quietPeriod = quietPeriod;
+        }
+
+        public String getVersionMarker() {
+            return versionMarker;
+        }
+
+        public void setVersionMarker(String versionMarker) {
+            this.versionMarker = versionMarker;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+    }
+
+    public static class Batching {
+        private boolean enabled;
+        private Duration window = Duration.ofNanos(500_000);
+        private int maxBatchSize = 50;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class Async {
+        private int poolSize = 16;
+        private int queueCapacity = 1_000;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Resilience {
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private final Hedging hedging = new Hedging();
+        private final StaleIfError staleIfError = new StaleIfError();
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public Hedging getHedging() {
+            return hedging;
+        }
+
+        public StaleIfError getStaleIfError() {
+            return staleIfError;
+        }
+    }
+
+    public static class CircuitBreaker {
+        private boolean enabled;
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private Duration slowCallDuration = Duration.ofMillis(500);
+        private double slowCallRateThreshold = 0.8;
+        private Duration openDuration = Duration.ofSeconds(5);
+        private int halfOpenCalls = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Duration getSlowCallDuration() {
+            return slowCallDuration;
+        }
+
+        public void setSlowCallDuration(Duration slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public double getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+    }
+
+    public static class Hedging {
+        private boolean enabled;
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(10);
+        private int minimumSamples = 20;
+        private int maxInFlight = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public int getMinimumSamples() {
+            return minimumSamples;
+        }
+
+        public void setMinimumSamples(int minimumSamples) {
+            this.minimumSamples = minimumSamples;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    public static class StaleIfError {
+        private boolean enabled;
+        private Duration maxStaleness = Duration.ofMinutes(5);
+        private List<String> actions = new ArrayList<>(List.of("read"));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getMaxStaleness() {
+            return maxStaleness;
+        }
+
+        public void setMaxStaleness(Duration maxStaleness) {
+            this.maxStaleness = maxStaleness;
+        }
+
+        public List<String> getActions() {
+            return actions;
+        }
+
+        public void setActions(List<String> actions) {
+            this.actions = actions;
+        }
+    }
+
+    public static class Warmup {
+        private boolean enabled;
+        private int iterations = 500;
+        private Duration timeout = Duration.ofSeconds(30);
+        private List<HotDecision> hotDecisions = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public List<HotDecision> getHotDecisions() {
+            return hotDecisions;
+        }
+
+        public void setHotDecisions(List<HotDecision> hotDecisions) {
+            this.hotDecisions = hotDecisions;
+        }
+    }
+
+    /**
+     * A principal, resource and actions whose decisions are loaded into the decision cache during warm-up. The
+     * principal and resource attributes must match those of the real checks exactly for the entries to be hit.
+     */
+    public static class HotDecision {
+        private String principal;
+        private List<String> roles = new ArrayList<>();
+        private String resourceKind;
+        private String resourceId;
+        private Map<String, Object> attributes = new LinkedHashMap<>();
+        private List<String> actions = new ArrayList<>();
+
+        public String getPrincipal() {
+            return principal;
+        }
+
+        public void setPrincipal(String principal) {
+            this.principal = principal;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        public void setRoles(List<String> roles) {
+            this.roles = roles;
+        }
+
+        public String getResourceKind() {
+            return resourceKind;
+        }
+
+        public void setResourceKind(String resourceKind) {
+            this.resourceKind = resourceKind;
+        }
+
+        public String getResourceId() {
+            return resourceId;
+        }
+
+        public void setResourceId(String resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(Map<String, Object> attributes) {
+            this.attributes = attributes;
+        }
+
+        public List<String> getActions() {
+            return actions;
+        }
+
+        public void setActions(List<String> actions) {
+            this.actions = actions;
+        }
+    }
+
+    /**
+     * Resource policies evaluated in-process by {@link LocalPolicyEngine}. {@code policies} are Spring resource
+     * patterns; checks the local policies cannot decide still go to the PDP.
+     */
+    public static class Local {
+        private boolean enabled;
+        private List<String> policies = new ArrayList<>(List.of("classpath:cerbos/policies/**/*.yaml"));
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getPolicies() {
+            return policies;
+        }
+
+        public void setPolicies(List<String> policies) {
+            this.policies = policies;
+        }
+    }
+
+    /**
+     * Decision audit log written by {@link CerbosDecisionLog}. {@code buffer-size} is rounded up to a power of two;
+     * decisions arriving while it is full are dropped and counted.
+     */
+    public static class Audit {
+        private boolean enabled;
+        private String directory = "audit";
+        private int bufferSize = 8192;
+        private int batchSize = 512;
+        private Duration flushInterval = Duration.ofMillis(50);
+        private DataSize maxFileSize = DataSize.ofMegabytes(64);
+        private int maxFiles = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public DataSize getMaxFileSize() {
+            return maxFileSize;
+        }
+
+        public void setMaxFileSize(DataSize maxFileSize) {
+            this.maxFileSize = maxFileSize;
+        }
+
+        public int getMaxFiles() {
+            return maxFiles;
+        }
+
+        public void setMaxFiles(int maxFiles) {
+            this.maxFiles = maxFiles;
+        }
+    }
 }
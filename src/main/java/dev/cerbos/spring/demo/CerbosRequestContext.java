@@ -0,0 +1,65 @@
+package dev.cerbos.spring.demo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Per-request authorization state, stored as a request attribute so that the HTTP guard and the method-security
+ * checks running for the same servlet request share the decisions already obtained from Cerbos.
+ */
+final class CerbosRequestContext {
+
+    private static final String ATTRIBUTE_NAME = CerbosRequestContext.class.getName();
+
+    private final Map<DecisionKey, Boolean> decisions = new ConcurrentHashMap<>();
+    private volatile PrincipalEntry principal;
+
+    private CerbosRequestContext() {
+    }
+
+    /**
+     * Returns the context bound to the current request, creating it on first use, or {@code null} when the caller is
+     * not running inside a request.
+     */
+    static CerbosRequestContext current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object existing = attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+        if (existing instanceof CerbosRequestContext context) {
+            return context;
+        }
+        CerbosRequestContext context = new CerbosRequestContext();
+        attributes.setAttribute(ATTRIBUTE_NAME, context, RequestAttributes.SCOPE_REQUEST);
+        return context;
+    }
+
+    Boolean get(DecisionKey key) {
+        return decisions.get(key);
+    }
+
+    void put(DecisionKey key, boolean allowed) {
+        decisions.put(key, allowed);
+    }
+
+    /**
+     * Returns the principal snapshot for {@code authentication}, reusing the one built earlier in this request when the
+     * same {@link Authentication} instance is presented again.
+     */
+    PrincipalSnapshot principal(Authentication authentication) {
+        PrincipalEntry entry = principal;
+        if (entry != null && entry.authentication() == authentication) {
+            return entry.snapshot();
+        }
+        PrincipalSnapshot snapshot = PrincipalSnapshot.of(authentication);
+        principal = new PrincipalEntry(authentication, snapshot);
+        return snapshot;
+    }
+
+    private record PrincipalEntry(Authentication authentication, PrincipalSnapshot snapshot) {
+    }
+}
@@ -0,0 +1,262 @@
+package dev.cerbos.spring.demo;
+
+import io.grpc.Status;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Guards PDP calls with an optional {@link CerbosCircuitBreaker} and optional hedging. With hedging enabled the call
+ * runs on the calling thread; if it has not answered within the configured percentile of recent call latencies, a
+ * second identical call is sent on a dedicated pool of at most {@code max-in-flight} threads. If the hedge answers
+ * first, the calling thread is interrupted, which cancels its blocking gRPC call, and the hedge's answer is returned.
+ * {@code CheckResources} has no side effects, so the duplicate is safe. When the pool is full no hedge is sent.
+ *
+ * <p>If the first call fails while a hedge is in flight, the caller waits for the hedge until the PDP deadline and
+ * then fails with {@code DEADLINE_EXCEEDED}.
+ */
+public class CerbosResilience implements DisposableBean {
+
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final CerbosCircuitBreaker circuitBreaker;
+    private final LatencyWindow latencies;
+    private final long deadlineNanos;
+    private final ScheduledThreadPoolExecutor hedgeTimer;
+    private final ThreadPoolExecutor hedgeExecutor;
+
+    public CerbosResilience(CerbosProperties.Resilience config, Duration deadline) {
+        this.circuitBreaker = config.getCircuitBreaker().isEnabled()
+                ? new CerbosCircuitBreaker(config.getCircuitBreaker())
+                : null;
+        this.deadlineNanos = deadline.toNanos();
+        if (config.getHedging().isEnabled()) {
+            this.latencies = new LatencyWindow(config.getHedging());
+            this.hedgeTimer = new ScheduledThreadPoolExecutor(1, daemonThreads("cerbos-hedge-timer"));
+            this.hedgeTimer.setRemoveOnCancelPolicy(true);
+            this.hedgeExecutor = new ThreadPoolExecutor(
+                    0, Math.max(1, config.getHedging().getMaxInFlight()), 30, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), daemonThreads("cerbos-hedge-"));
+        } else {
+            this.latencies = null;
+            this.hedgeTimer = null;
+            this.hedgeExecutor = null;
+        }
+    }
+
+    /**
+     * Resilience that passes every call straight through.
+     */
+    public static CerbosResilience disabled() {
+        return new CerbosResilience(new CerbosProperties.Resilience(), Duration.ZERO);
+    }
+
+    /**
+     * Returns the circuit breaker state, or {@link CerbosCircuitBreaker.State#CLOSED} when none is configured.
+     */
+    public CerbosCircuitBreaker.State state() {
+        return circuitBreaker != null ? circuitBreaker.state() : CerbosCircuitBreaker.State.CLOSED;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            throw new CerbosUnavailableException("Cerbos circuit breaker is open");
+        }
+        long started = System.nanoTime();
+        T result;
+        try {
+            result = latencies != null ? hedged(call) : call.get();
+        } catch (RuntimeException ex) {
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure(System.nanoTime() - started);
+            }
+            throw ex;
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.onSuccess(System.nanoTime() - started);
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        if (hedgeTimer != null) {
+            hedgeTimer.shutdownNow();
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    private <T> T hedged(Supplier<T> call) {
+        long delayNanos = latencies.hedgeDelayNanos();
+        if (delayNanos < 0) {
+            return timed(call);
+        }
+        long started = System.nanoTime();
+        Hedge<T> hedge = new Hedge<>(Thread.currentThread());
+        ScheduledFuture<?> timer;
+        try {
+            timer = hedgeTimer.schedule(() -> launch(call, hedge), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex) {
+            return timed(call);
+        }
+        T value;
+        try {
+            value = timed(call);
+        } catch (RuntimeException ex) {
+            boolean hedgeWon = hedge.primaryFinished();
+            if (hedgeWon) {
+                Thread.interrupted();
+            }
+            if (timer.cancel(false)) {
+                throw ex;
+            }
+            return hedge.await(started + deadlineNanos, ex);
+        }
+        timer.cancel(false);
+        if (hedge.primaryFinished()) {
+            Thread.interrupted();
+            return hedge.result.join();
+        }
+        return value;
+    }
+
+    private <T> void launch(Supplier<T> call, Hedge<T> hedge) {
+        try {
+            hedgeExecutor.execute(() -> {
+                try {
+                    hedge.succeeded(timed(call));
+                } catch (RuntimeException ex) {
+                    hedge.result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            hedge.result.completeExceptionally(ex);
+        }
+    }
+
+    private <T> T timed(Supplier<T> call) {
+        long started = System.nanoTime();
+        T result = call.get();
+        latencies.record(System.nanoTime() - started);
+        return result;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The hedge of one call. A successful hedge interrupts the caller only while its own attempt is still running, so
+     * the interrupt never leaks past {@link #primaryFinished}.
+     */
+    private static final class Hedge<T> {
+
+        private final Thread caller;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private boolean primaryRunning = true;
+        private boolean interrupted;
+
+        Hedge(Thread caller) {
+            this.caller = caller;
+        }
+
+        synchronized void succeeded(T value) {
+            result.complete(value);
+            if (primaryRunning && !interrupted) {
+                interrupted = true;
+                caller.interrupt();
+            }
+        }
+
+        /**
+         * Marks the caller's attempt as finished and returns whether the hedge answered, and interrupted it, first.
+         */
+        synchronized boolean primaryFinished() {
+            primaryRunning = false;
+            return interrupted;
+        }
+
+        T await(long deadline, RuntimeException primaryFailure) {
+            try {
+                return result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                throw Status.DEADLINE_EXCEEDED
+                        .withDescription("Cerbos hedge did not answer before the PDP deadline")
+                        .withCause(primaryFailure)
+                        .asRuntimeException();
+            } catch (ExecutionException ex) {
+                throw primaryFailure;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for Cerbos", ex);
+            }
+        }
+    }
+
+    /**
+     * Latencies of the most recent successful calls. The hedge delay is recomputed from a sorted copy every
+     * {@value #RECOMPUTE_EVERY} samples rather than on every call.
+     */
+    static final class LatencyWindow {
+
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private final double percentile;
+        private final long minDelayNanos;
+        private final int minimumSamples;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int position;
+        private int count;
+        private int sinceRecompute;
+        private volatile long delayNanos = -1;
+
+        LatencyWindow(CerbosProperties.Hedging config) {
+            this.percentile = Math.min(1.0, Math.max(0.0, config.getPercentile()));
+            this.minDelayNanos = config.getMinDelay().toNanos();
+            this.minimumSamples = Math.max(1, Math.min(config.getMinimumSamples(), LATENCY_SAMPLES));
+        }
+
+        void record(long nanos) {
+            lock.lock();
+            try {
+                samples[position] = nanos;
+                position = (position + 1) % LATENCY_SAMPLES;
+                count = Math.min(count + 1, LATENCY_SAMPLES);
+                if (count >= minimumSamples && (++sinceRecompute >= RECOMPUTE_EVERY || delayNanos < 0)) {
+                    sinceRecompute = 0;
+                    long[] sorted = Arrays.copyOf(samples, count);
+                    Arrays.sort(sorted);
+                    int index = Math.min(count - 1, (int) Math.ceil(percentile * count) - 1);
+                    delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns how long to wait before hedging, or {@code -1} while too few samples have been recorded.
+         */
+        long hedgeDelayNanos() {
+            return delayNanos;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package dev.cerbos.spring.demo;
+
+import java.util.Map;
+
+/**
+ * A resource to authorize in a bulk check. Ids must be unique within a single call.
+ */
+public record CerbosResource(String kind, String id, Map<String, Object> attributes) {
+
+    public CerbosResource {
+        attributes = attributes != null ? attributes : Map.of();
+    }
+}
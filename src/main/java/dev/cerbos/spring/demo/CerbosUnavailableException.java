@@ -0,0 +1,11 @@
+package dev.cerbos.spring.demo;
+
+/**
+ * Thrown instead of calling the PDP while the {@link CerbosCircuitBreaker} is open.
+ */
+public class CerbosUnavailableException extends RuntimeException {
+
+    public CerbosUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,133 @@
+package dev.cerbos.spring.demo;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Warms up the authorization path before the application reports ready. Spring Boot only moves the readiness state to
+ * {@code ACCEPTING_TRAFFIC} once every {@link ApplicationRunner} has finished, so a readiness probe keeps traffic away
+ * until this runner is done.
+ *
+ * <p>Warm-up opens every PDP channel, then sends {@code iterations} synthetic checks with nested attributes through
+ * {@link CerbosAuthorizationService} to load and compile the request path, and finally loads the decisions listed in
+ * {@code cerbos.warmup.hot-decisions} into the decision cache. PDP failures are logged and end the warm-up early; they
+ * never fail startup.
+ */
+public class CerbosWarmup implements ApplicationRunner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CerbosWarmup.class);
+    private static final String SYNTHETIC_KIND = "cerbos_warmup";
+
+    private final CerbosAuthorizationService authorizationService;
+    private final CerbosLoadBalancer loadBalancer;
+    private final CerbosDecisionCache decisionCache;
+    private final CerbosProperties.Warmup config;
+
+    public CerbosWarmup(
+            CerbosAuthorizationService authorizationService,
+            CerbosLoadBalancer loadBalancer,
+            CerbosDecisionCache decisionCache,
+            CerbosProperties.Warmup config) {
+        this.authorizationService = authorizationService;
+        this.loadBalancer = loadBalancer;
+        this.decisionCache = decisionCache;
+        this.config = config;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.nanoTime();
+        long deadline = started + config.getTimeout().toNanos();
+
+        int endpoints = loadBalancer.endpoints().size();
+        int connected = loadBalancer.connect();
+        if (connected < endpoints) {
+            LOGGER.warn("Cerbos warm-up connected to {} of {} PDP endpoints", connected, endpoints);
+        }
+
+        int synthetic = connected > 0 ? runSyntheticChecks(deadline) : 0;
+        if (decisionCache != null) {
+            decisionCache.invalidateAll();
+        }
+        int hot = connected > 0 ? loadHotDecisions(deadline) : 0;
+
+        LOGGER.info("Cerbos warm-up finished in {} ms: {} endpoints connected, {} synthetic checks, {} hot decisions",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), connected, synthetic, hot);
+    }
+
+    /**
+     * Each synthetic check has a distinct iteration attribute, so none of them is answered from a cache; the entries
+     * they leave behind are dropped once the loop ends.
+     */
+    int runSyntheticChecks(long deadline) {
+        Authentication authentication = authentication("cerbos-warmup", List.of("warmup"));
+        Map<String, Object> principalAttributes = Map.of("department", "warmup", "clearance", 1);
+        int completed = 0;
+        for (int i = 0; i < config.getIterations() && System.nanoTime() - deadline < 0; i++) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("iteration", i);
+            attributes.put("owner", "cerbos-warmup");
+            attributes.put("public", i % 2 == 0);
+            attributes.put("tags", List.of("warmup", "synthetic"));
+            attributes.put("metadata", Map.of("classification", "internal", "revision", i % 7, "score", i * 0.5));
+            try {
+                authorizationService.checkPermission(
+                        CerbosCallSite.WARMUP, authentication, SYNTHETIC_KIND, "warmup-" + i, "read", attributes,
+                        principalAttributes);
+                completed++;
+            } catch (AccessDeniedException ex) {
+                LOGGER.warn("Cerbos warm-up stopped after {} synthetic checks: {}", completed, ex.getMessage());
+                break;
+            }
+        }
+        return completed;
+    }
+
+    int loadHotDecisions(long deadline) {
+        if (config.getHotDecisions().isEmpty()) {
+            return 0;
+        }
+        if (decisionCache == null) {
+            LOGGER.warn("Ignoring cerbos.warmup.hot-decisions because the decision cache is disabled");
+            return 0;
+        }
+        int loaded = 0;
+        for (CerbosProperties.HotDecision hot : config.getHotDecisions()) {
+            if (System.nanoTime() - deadline >= 0) {
+                LOGGER.warn("Cerbos warm-up timed out after loading {} hot decisions", loaded);
+                break;
+            }
+            CerbosResource resource = new CerbosResource(hot.getResourceKind(), hot.getResourceId(), hot.getAttributes());
+            try {
+                authorizationService.checkPermissions(
+                        authentication(hot.getPrincipal(), hot.getRoles()), List.of(resource),
+                        new LinkedHashSet<>(hot.getActions()));
+                loaded += hot.getActions().size();
+            } catch (AccessDeniedException ex) {
+                LOGGER.warn("Cerbos warm-up stopped after loading {} hot decisions: {}", loaded, ex.getMessage());
+                break;
+            }
+        }
+        return loaded;
+    }
+
+    private static Authentication authentication(String principal, List<String> roles) {
+        UserDetails user = User.withUsername(principal)
+                .password("")
+                .roles(roles.toArray(String[]::new))
+                .build();
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+}
@@ -0,0 +1,19 @@
+package dev.cerbos.spring.demo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identifies a single Cerbos decision by everything the PDP sees: the principal (id, roles and attributes), the
+ * resource (kind, id and attributes) and the action. Attribute maps are compared by value, so two checks built from
+ * equal inputs share a key.
+ */
+record DecisionKey(
+        String principalId,
+        List<String> roles,
+        Map<String, Object> principalAttributes,
+        String resourceKind,
+        String resourceId,
+        Map<String, Object> resourceAttributes,
+        String action) {
+}
@@ -1,31 +1,117 @@
 package dev.cerbos.spring.demo;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Predicate;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
-@RequestMapping("/documents")
 public class DocumentController {
 
+    static final String NDJSON = "application/x-ndjson";
+
     private final DocumentService documentService;
+    private final ObjectMapper objectMapper;
 
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService, ObjectMapper objectMapper) {
         this.documentService = documentService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/documents")
+    public List<Document> list() {
+        return documentService.listDocuments();
+    }
+
+    @GetMapping(value = "/documents", params = "owner")
+    public DocumentPage listByOwner(
+            @RequestParam("owner") String owner,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        return documentService.listDocumentsByOwner(owner, cursor, limit);
+    }
+
+    @GetMapping(value = "/documents", params = {"attribute", "value", "!owner"})
+    public DocumentPage listByContent(
+            @RequestParam("attribute") String attribute,
+            @RequestParam("value") String value,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        return documentService.listDocumentsByContent(attribute, value, cursor, limit);
     }
 
-    @GetMapping("/{documentId}")
+    /**
+     * Streams every document the caller may read as NDJSON. The query plan is fetched before the response starts, so
+     * authorization failures still produce an error status; rows are written from an async thread and flushed per
+     * chunk, blocking while the client is slow to read.
+     */
+    @GetMapping(value = "/documents/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Predicate<Document> planFilter = documentService.exportFilter(authentication);
+        StreamingResponseBody body = output -> documentService.exportDocuments(authentication, planFilter, chunk -> {
+            try {
+                for (Document document : chunk) {
+                    output.write(objectMapper.writeValueAsBytes(document));
+                    output.write('\n');
+                }
+                output.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @GetMapping("/documents/{documentId}")
     public Document read(@PathVariable("documentId") String documentId) {
         return documentService.readDocument(documentId);
     }
 
-    @PostMapping
+    @PostMapping("/documents")
     public ResponseEntity<Document> create(@RequestBody DocumentRequest request) {
         Document document = documentService.createDocument(request);
         return ResponseEntity.status(201).body(document);
     }
+
+    /**
+     * Imports an NDJSON body of document requests, writing one result line per input line. Results are flushed after
+     * every chunk, so clients see progress while the upload is still being read.
+     */
+    @PostMapping(value = "/documents/bulk", produces = NDJSON)
+    public void bulkImport(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        OutputStream output = response.getOutputStream();
+        documentService.importDocuments(request.getInputStream(), results -> {
+            try {
+                for (DocumentImportResult result : results) {
+                    output.write(objectMapper.writeValueAsBytes(result));
+                    output.write('\n');
+                }
+                output.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    @PostMapping("/documents:batchGet")
+    public List<Document> batchGet(@RequestBody BatchGetRequest request) {
+        return documentService.batchGetDocuments(request.getDocumentIds());
+    }
 }
@@ -0,0 +1,23 @@
+package dev.cerbos.spring.demo;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one line of a bulk import: {@code created}, {@code denied} or {@code invalid}, with the reason for the
+ * latter.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DocumentImportResult(int line, String id, String status, String error) {
+
+    static DocumentImportResult created(int line, String id) {
+        return new DocumentImportResult(line, id, "created", null);
+    }
+
+    static DocumentImportResult denied(int line, String id) {
+        return new DocumentImportResult(line, id, "denied", null);
+    }
+
+    static DocumentImportResult invalid(int line, String error) {
+        return new DocumentImportResult(line, null, "invalid", error);
+    }
+}
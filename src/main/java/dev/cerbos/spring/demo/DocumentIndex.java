@@ -0,0 +1,124 @@
+package dev.cerbos.spring.demo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Secondary indexes over documents, by owner and by the value of each configured top-level content key. Every index
+ * maps a value to the sorted ids of the documents holding it, so a page is one seek into a sorted set followed by
+ * reading as many ids as the page needs. Only scalar content values are indexed, by their string form.
+ *
+ * <p>Updates for different documents may run concurrently; updates for the same document must not.
+ */
+final class DocumentIndex {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<String>> byOwner = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, NavigableSet<String>>> byContent = new HashMap<>();
+
+    DocumentIndex(Collection<String> contentKeys) {
+        contentKeys.forEach(key -> byContent.put(key, new ConcurrentHashMap<>()));
+    }
+
+    void update(Document document) {
+        Map<String, String> values = new HashMap<>();
+        byContent.keySet().forEach(key -> {
+            String value = normalize(document.content().get(key));
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        Entry current = new Entry(document.owner(), values);
+        Entry previous = entries.put(document.id(), current);
+        if (current.equals(previous)) {
+            return;
+        }
+        String previousOwner = previous != null ? previous.owner() : null;
+        move(byOwner, document.id(), previousOwner, current.owner());
+        byContent.forEach((key, index) -> move(
+                index, document.id(), previous != null ? previous.values().get(key) : null, values.get(key)));
+    }
+
+    DocumentPage findByOwner(String owner, String cursor, int limit, Function<String, Optional<Document>> loader) {
+        return page(byOwner.get(owner), cursor, limit, loader, document -> owner.equals(document.owner()));
+    }
+
+    DocumentPage findByContent(
+            String key, Object value, String cursor, int limit, Function<String, Optional<Document>> loader) {
+        Map<String, NavigableSet<String>> index = byContent.get(key);
+        if (index == null) {
+            throw new InvalidQueryException("Content key '" + key + "' is not indexed");
+        }
+        String normalized = normalize(value);
+        NavigableSet<String> ids = normalized != null ? index.get(normalized) : null;
+        return page(ids, cursor, limit, loader,
+                document -> Objects.equals(normalized, normalize(document.content().get(key))));
+    }
+
+    private static void move(Map<String, NavigableSet<String>> index, String id, String from, String to) {
+        if (Objects.equals(from, to)) {
+            return;
+        }
+        if (to != null) {
+            index.compute(to, (value, ids) -> {
+                NavigableSet<String> updated = ids != null ? ids : new ConcurrentSkipListSet<>();
+                updated.add(id);
+                return updated;
+            });
+        }
+        if (from != null) {
+            index.computeIfPresent(from, (value, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} documents after the cursor. Documents changed since their id was read are checked
+     * against {@code matches} again, so a page may come back short but never holds a document that no longer matches.
+     */
+    private static DocumentPage page(
+            NavigableSet<String> ids,
+            String cursor,
+            int limit,
+            Function<String, Optional<Document>> loader,
+            Predicate<Document> matches) {
+        if (limit <= 0) {
+            throw new InvalidQueryException("Page size must be positive");
+        }
+        String after = DocumentPage.decodeCursor(cursor);
+        if (ids == null) {
+            return new DocumentPage(List.of(), null);
+        }
+        Iterator<String> remaining = (after != null ? ids.tailSet(after, false) : ids).iterator();
+        List<Document> documents = new ArrayList<>(Math.min(limit, 64));
+        String last = null;
+        for (int read = 0; read < limit && remaining.hasNext(); read++) {
+            last = remaining.next();
+            loader.apply(last).filter(matches).ifPresent(documents::add);
+        }
+        return new DocumentPage(documents, remaining.hasNext() ? DocumentPage.encodeCursor(last) : null);
+    }
+
+    private static String normalize(Object value) {
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    private record Entry(String owner, Map<String, String> values) {
+    }
+}
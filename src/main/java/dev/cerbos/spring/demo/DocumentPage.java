@@ -0,0 +1,30 @@
+package dev.cerbos.spring.demo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a listing ordered by document id. {@code nextCursor} is {@code null} on the last page; otherwise passing
+ * it back returns the documents that follow, even when documents were added in between.
+ */
+public record DocumentPage(List<Document> documents, String nextCursor) {
+
+    static String encodeCursor(String documentId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(documentId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the id the page starts after, or {@code null} for the first page
+     */
+    static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidQueryException("Invalid page cursor: " + cursor);
+        }
+    }
+}
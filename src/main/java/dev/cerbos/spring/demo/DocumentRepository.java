@@ -1,28 +1,43 @@
 package dev.cerbos.spring.demo;
 
-import jakarta.annotation.PostConstruct;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import org.springframework.stereotype.Repository;
+import java.util.stream.Stream;
 
-@Repository
-public class DocumentRepository {
+/**
+ * Document storage. {@code documents.store.type} selects {@link InMemoryDocumentRepository} (the default) or the
+ * durable {@link LogDocumentRepository}.
+ */
+public interface DocumentRepository {
 
-    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    Optional<Document> findById(String documentId);
 
-    public Optional<Document> findById(String documentId) {
-        return Optional.ofNullable(documents.get(documentId));
-    }
+    List<Document> findAll();
 
-    public Document save(Document document) {
-        documents.put(document.id(), document);
-        return document;
-    }
+    /**
+     * Every document, loaded lazily as the stream is consumed. Documents saved while it is consumed may or may not be
+     * included.
+     */
+    Stream<Document> streamAll();
+
+    Document save(Document document);
 
-    @PostConstruct
-    void init() {
-        documents.put("alpha", new Document("alpha", "alice", Map.of("title", "Quarterly plan")));
-        documents.put("beta", new Document("beta", "bob", Map.of("title", "Draft budget")));
+    /**
+     * Saves {@code documents} in order. Stores override this when a batch is cheaper than separate saves.
+     */
+    default List<Document> saveAll(List<Document> documents) {
+        documents.forEach(this::save);
+        return documents;
     }
+
+    /**
+     * Documents owned by {@code owner}, ordered by id, starting after {@code cursor} ({@code null} for the first page).
+     */
+    DocumentPage findByOwner(String owner, String cursor, int limit);
+
+    /**
+     * Documents whose top-level content {@code key} equals {@code value}, ordered by id. Only keys listed in
+     * {@code documents.store.indexed-content-keys} can be queried.
+     */
+    DocumentPage findByContent(String key, Object value, String cursor, int limit);
 }
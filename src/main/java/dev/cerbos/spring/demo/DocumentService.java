@@ -1,7 +1,22 @@
 package dev.cerbos.spring.demo;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -13,27 +28,236 @@ import org.springframework.util.StringUtils;
 @Service
 public class DocumentService {
 
+    static final int MAX_PAGE_SIZE = 500;
+    static final int IMPORT_CHUNK_SIZE = 100;
+    static final int MAX_IMPORT_LINE_BYTES = 1024 * 1024;
+    static final int EXPORT_CHUNK_SIZE = 100;
+
     private final DocumentRepository repository;
+    private final CerbosMethodAuthorizer methodAuthorizer;
+    private final ObjectMapper objectMapper;
 
-    public DocumentService(DocumentRepository repository) {
+    public DocumentService(
+            DocumentRepository repository, CerbosMethodAuthorizer methodAuthorizer, ObjectMapper objectMapper) {
         this.repository = repository;
+        this.methodAuthorizer = methodAuthorizer;
+        this.objectMapper = objectMapper;
     }
 
-    @PreAuthorize("@cerbosMethodAuthorizer.canViewDocuments(authentication)")
+    /**
+     * The coarse "can view documents" check is started before the lookup and awaited afterwards, so the PDP round-trip
+     * overlaps with loading the document instead of preceding it.
+     */
     @PostAuthorize("@cerbosMethodAuthorizer.canAccessDocument(authentication, returnObject, 'read')")
     public Document readDocument(String documentId) {
-        return repository.findById(documentId).orElseThrow(() -> new DocumentNotFoundException(documentId));
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CompletableFuture<Boolean> canView = methodAuthorizer.canViewDocumentsAsync(authentication);
+        Optional<Document> document = repository.findById(documentId);
+        if (!CerbosAuthorizationService.await(canView)) {
+            throw new AccessDeniedException("Access Denied");
+        }
+        return document.orElseThrow(() -> new DocumentNotFoundException(documentId));
+    }
+
+    /**
+     * Lists the documents the caller may read, filtered by a single Cerbos query plan rather than one check per
+     * document. When the plan cannot be compiled, documents are checked in batches as in {@link #exportDocuments}.
+     */
+    public List<Document> listDocuments() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        List<Document> readable = new ArrayList<>();
+        exportDocuments(authentication, exportFilter(authentication), readable::addAll);
+        return readable;
+    }
+
+    /**
+     * Pages through the documents owned by {@code owner} that the caller may read. Pages come from the owner index and
+     * are filtered with one Cerbos query plan; a page holds {@code limit} documents unless the listing is exhausted.
+     */
+    public DocumentPage listDocumentsByOwner(String owner, String cursor, int limit) {
+        return readablePage(cursor, limit, (after, size) -> repository.findByOwner(owner, after, size));
+    }
+
+    /**
+     * Like {@link #listDocumentsByOwner}, for documents whose indexed content {@code key} equals {@code value}.
+     */
+    public DocumentPage listDocumentsByContent(String key, String value, String cursor, int limit) {
+        return readablePage(cursor, limit, (after, size) -> repository.findByContent(key, value, after, size));
+    }
+
+    /**
+     * Loads the requested documents and returns only those the caller may read. Unknown ids are skipped.
+     */
+    public List<Document> batchGetDocuments(List<String> documentIds) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        List<Document> documents = documentIds.stream()
+                .distinct()
+                .map(repository::findById)
+                .flatMap(Optional::stream)
+                .toList();
+        if (documents.isEmpty()) {
+            return documents;
+        }
+        return methodAuthorizer.filterAccessibleDocuments(authentication, documents, "read");
+    }
+
+    /**
+     * Creates documents from an NDJSON stream of {@link DocumentRequest}s. Lines are read in chunks of
+     * {@value #IMPORT_CHUNK_SIZE}; each chunk is authorized with one bulk Cerbos check and its accepted documents are
+     * saved as one batch, so memory stays bounded however large the input is. {@code results} receives each chunk's
+     * outcomes, in input order, before the next chunk is read.
+     */
+    public void importDocuments(InputStream input, Consumer<List<DocumentImportResult>> results) throws IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        NdjsonReader reader = new NdjsonReader(input, MAX_IMPORT_LINE_BYTES);
+        List<ImportLine> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        Set<String> chunkIds = new HashSet<>();
+        for (NdjsonReader.Line line = reader.next(); line != null; line = reader.next()) {
+            ImportLine parsed = parse(line);
+            String documentId = parsed.request() != null ? parsed.request().getDocumentId() : null;
+            if (chunk.size() == IMPORT_CHUNK_SIZE
+                    || (StringUtils.hasText(documentId) && chunkIds.contains(documentId))) {
+                results.accept(importChunk(authentication, chunk));
+                chunk.clear();
+                chunkIds.clear();
+            }
+            chunk.add(parsed);
+            if (StringUtils.hasText(documentId)) {
+                chunkIds.add(documentId);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.accept(importChunk(authentication, chunk));
+        }
+    }
+
+    private ImportLine parse(NdjsonReader.Line line) {
+        if (line.tooLong()) {
+            return new ImportLine(line.number(), null, "Line exceeds " + MAX_IMPORT_LINE_BYTES + " bytes");
+        }
+        try {
+            DocumentRequest request = objectMapper.readValue(line.bytes(), 0, line.length(), DocumentRequest.class);
+            return new ImportLine(line.number(), request, null);
+        } catch (JsonProcessingException ex) {
+            return new ImportLine(line.number(), null, ex.getOriginalMessage());
+        } catch (IOException ex) {
+            return new ImportLine(line.number(), null, ex.getMessage());
+        }
+    }
+
+    private List<DocumentImportResult> importChunk(Authentication authentication, List<ImportLine> chunk) {
+        List<DocumentRequest> requests = chunk.stream()
+                .map(ImportLine::request)
+                .filter(request -> request != null)
+                .toList();
+        List<Boolean> decisions =
+                requests.isEmpty() ? List.of() : methodAuthorizer.canCreateDocuments(authentication, requests);
+        String owner = authentication != null ? authentication.getName() : "system";
+        List<Document> accepted = new ArrayList<>();
+        List<DocumentImportResult> results = new ArrayList<>(chunk.size());
+        int decision = 0;
+        for (ImportLine line : chunk) {
+            if (line.request() == null) {
+                results.add(DocumentImportResult.invalid(line.number(), line.error()));
+                continue;
+            }
+            Document document = toDocument(owner, line.request());
+            if (decisions.get(decision++)) {
+                accepted.add(document);
+                results.add(DocumentImportResult.created(line.number(), document.id()));
+            } else {
+                results.add(DocumentImportResult.denied(line.number(), line.request().getDocumentId()));
+            }
+        }
+        if (!accepted.isEmpty()) {
+            repository.saveAll(accepted);
+        }
+        return results;
+    }
+
+    /**
+     * Fetches the query plan for an export of readable documents, or returns {@code null} when the plan cannot be
+     * compiled and the export has to check documents itself.
+     */
+    public Predicate<Document> exportFilter(Authentication authentication) {
+        return methodAuthorizer.documentPlanFilter(authentication, "read");
+    }
+
+    /**
+     * Streams every document {@code authentication} may read to {@code chunks}, {@value #EXPORT_CHUNK_SIZE} at a time.
+     * Documents are pulled from the repository only as fast as {@code chunks} consumes them, so memory stays constant
+     * and a slow consumer slows the export down. Without a {@code planFilter}, each chunk is authorized with one
+     * batched Cerbos check.
+     */
+    public void exportDocuments(
+            Authentication authentication, Predicate<Document> planFilter, Consumer<List<Document>> chunks) {
+        try (var documents = repository.streamAll()) {
+            Iterator<Document> iterator = documents.iterator();
+            List<Document> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == EXPORT_CHUNK_SIZE || !iterator.hasNext()) {
+                    List<Document> readable = planFilter != null
+                            ? chunk.stream().filter(planFilter).toList()
+                            : methodAuthorizer.filterAccessibleDocuments(authentication, chunk, "read");
+                    if (!readable.isEmpty()) {
+                        chunks.accept(readable);
+                    }
+                    chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects up to {@code limit} readable documents, fetching further index pages while documents are filtered out.
+     * The cursor returned always names the last document returned, never one the caller may not read. Without a
+     * compilable query plan each index page is authorized with one batched Cerbos check.
+     */
+    private DocumentPage readablePage(
+            String cursor, int limit, BiFunction<String, Integer, DocumentPage> fetch) {
+        int size = Math.min(limit, MAX_PAGE_SIZE);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Predicate<Document> planFilter = null;
+        boolean planned = false;
+        List<Document> documents = new ArrayList<>();
+        String after = cursor;
+        while (true) {
+            DocumentPage page = fetch.apply(after, size - documents.size());
+            if (!page.documents().isEmpty()) {
+                if (!planned) {
+                    planFilter = exportFilter(authentication);
+                    planned = true;
+                }
+                documents.addAll(planFilter != null
+                        ? page.documents().stream().filter(planFilter).toList()
+                        : methodAuthorizer.filterAccessibleDocuments(authentication, page.documents(), "read"));
+            }
+            if (page.nextCursor() == null) {
+                return new DocumentPage(documents, null);
+            }
+            if (documents.size() == size) {
+                return new DocumentPage(documents, DocumentPage.encodeCursor(documents.get(size - 1).id()));
+            }
+            after = page.nextCursor();
+        }
     }
 
     @PreAuthorize("@cerbosMethodAuthorizer.canCreateDocument(authentication, #request)")
     public Document createDocument(@P("request") DocumentRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String owner = authentication != null ? authentication.getName() : "system";
+        return repository.save(toDocument(owner, request));
+    }
+
+    private static Document toDocument(String owner, DocumentRequest request) {
         String documentId = StringUtils.hasText(request.getDocumentId())
                 ? request.getDocumentId()
                 : UUID.randomUUID().toString();
         Map<String, Object> content = request.getContent() != null ? Map.copyOf(request.getContent()) : Map.of();
-        Document document = new Document(documentId, owner, content);
-        return repository.save(document);
+        return new Document(documentId, owner, content);
+    }
+
+    private record ImportLine(int number, DocumentRequest request, String error) {
     }
 }
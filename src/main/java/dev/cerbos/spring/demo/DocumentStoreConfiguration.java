@@ -0,0 +1,38 @@
+package dev.cerbos.spring.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DocumentStoreProperties.class)
+public class DocumentStoreConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.store", name = "type", havingValue = "memory", matchIfMissing = true)
+    public DocumentRepository inMemoryDocumentRepository(DocumentStoreProperties properties) {
+        return seed(new InMemoryDocumentRepository(properties.getIndexedContentKeys()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "documents.store", name = "type", havingValue = "log")
+    public DocumentRepository logDocumentRepository(DocumentStoreProperties properties, ObjectMapper objectMapper) {
+        return seed(new LogDocumentRepository(properties, objectMapper));
+    }
+
+    /**
+     * Adds the demo documents unless the store already has them.
+     */
+    private static DocumentRepository seed(DocumentRepository repository) {
+        if (repository.findById("alpha").isEmpty()) {
+            repository.save(new Document("alpha", "alice", Map.of("title", "Quarterly plan")));
+        }
+        if (repository.findById("beta").isEmpty()) {
+            repository.save(new Document("beta", "bob", Map.of("title", "Draft budget")));
+        }
+        return repository;
+    }
+}
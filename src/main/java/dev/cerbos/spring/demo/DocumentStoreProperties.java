@@ -0,0 +1,77 @@
+package dev.cerbos.spring.demo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Where documents are kept. The {@code log} store appends documents to memory-mapped segment files of
+ * {@code segment-size} in {@code directory}; every {@code compaction-interval}, sealed segments in which at least
+ * {@code compaction-threshold} of the bytes belong to overwritten documents are rewritten and deleted. Both stores index
+ * documents by owner and by each top-level content key in {@code indexed-content-keys}.
+ */
+@ConfigurationProperties(prefix = "documents.store")
+public class DocumentStoreProperties {
+
+    private Type type = Type.MEMORY;
+    private String directory = "data/documents";
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    private Duration compactionInterval = Duration.ofMinutes(1);
+    private double compactionThreshold = 0.5;
+    private List<String> indexedContentKeys = new ArrayList<>();
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    public void setCompactionInterval(Duration compactionInterval) {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public List<String> getIndexedContentKeys() {
+        return indexedContentKeys;
+    }
+
+    public void setIndexedContentKeys(List<String> indexedContentKeys) {
+        this.indexedContentKeys = indexedContentKeys;
+    }
+
+    public enum Type {
+        MEMORY,
+        LOG
+    }
+}
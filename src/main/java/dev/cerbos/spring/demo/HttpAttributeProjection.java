@@ -0,0 +1,115 @@
+package dev.cerbos.spring.demo;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.util.StringUtils;
+
+/**
+ * The {@code http_request} resource attributes selected by {@code cerbos.http.*}, compiled once so that each request
+ * only reads the headers and fields the policies actually use.
+ */
+final class HttpAttributeProjection {
+
+    static final String ALL_HEADERS = "*";
+
+    private final boolean allHeaders;
+    private final String[] headerNames;
+    private final boolean includeQuery;
+    private final boolean includeRemoteAddr;
+    private final boolean includeSegments;
+
+    HttpAttributeProjection(CerbosProperties.Http config) {
+        List<String> names = new ArrayList<>();
+        boolean wildcard = false;
+        for (String header : config.getHeaders()) {
+            if (ALL_HEADERS.equals(header)) {
+                wildcard = true;
+            } else if (StringUtils.hasText(header)) {
+                String name = header.trim().toLowerCase(Locale.ROOT);
+                if (!names.contains(name)) {
+                    names.add(name);
+                }
+            }
+        }
+        this.allHeaders = wildcard;
+        this.headerNames = names.toArray(String[]::new);
+        this.includeQuery = config.isIncludeQuery();
+        this.includeRemoteAddr = config.isIncludeRemoteAddr();
+        this.includeSegments = config.isIncludeSegments();
+    }
+
+    Map<String, Object> project(HttpServletRequest request) {
+        Map<String, Object> attributes = new LinkedHashMap<>(12);
+        String uri = request.getRequestURI();
+        attributes.put("method", request.getMethod());
+        attributes.put("path", uri);
+        if (includeQuery) {
+            attributes.put("query", request.getQueryString());
+        }
+        if (includeRemoteAddr) {
+            attributes.put("remoteAddr", request.getRemoteAddr());
+        }
+        if (allHeaders) {
+            attributes.put("headers", allHeaders(request));
+        } else if (headerNames.length > 0) {
+            attributes.put("headers", selectedHeaders(request));
+        }
+        if (includeSegments) {
+            attributes.put("segments", segments(uri));
+        }
+        return attributes;
+    }
+
+    private static Map<String, List<String>> allHeaders(HttpServletRequest request) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        Enumeration<String> names = request.getHeaderNames();
+        while (names.hasMoreElements()) {
+            String name = names.nextElement();
+            headers.put(name.toLowerCase(Locale.ROOT), values(request.getHeaders(name)));
+        }
+        return headers;
+    }
+
+    private Map<String, List<String>> selectedHeaders(HttpServletRequest request) {
+        Map<String, List<String>> headers = new LinkedHashMap<>((int) (headerNames.length / 0.75f) + 1);
+        for (String name : headerNames) {
+            List<String> selected = values(request.getHeaders(name));
+            if (!selected.isEmpty()) {
+                headers.put(name, selected);
+            }
+        }
+        return headers;
+    }
+
+    private static List<String> values(Enumeration<String> enumeration) {
+        if (enumeration == null || !enumeration.hasMoreElements()) {
+            return List.of();
+        }
+        String first = enumeration.nextElement();
+        if (!enumeration.hasMoreElements()) {
+            return List.of(first);
+        }
+        List<String> values = new ArrayList<>(2);
+        values.add(first);
+        while (enumeration.hasMoreElements()) {
+            values.add(enumeration.nextElement());
+        }
+        return values;
+    }
+
+    private static List<String> segments(String uri) {
+        if (!StringUtils.hasText(uri)) {
+            return List.of();
+        }
+        String sanitized = uri.startsWith("/") ? uri.substring(1) : uri;
+        if (!StringUtils.hasText(sanitized)) {
+            return List.of();
+        }
+        return List.of(sanitized.split("/"));
+    }
+}
@@ -0,0 +1,232 @@
+package dev.cerbos.spring.demo;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriUtils;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Resolves the Cerbos resource for an HTTP request from the route templates in {@code cerbos.http.routes}.
+ *
+ * <p>Templates are compiled into a trie of path segments at startup. Matching walks the request path once, preferring
+ * literal segments over {@code {variable}} segments, and only allocates the captured variable values. Templates are
+ * matched against the still-encoded path within the application, so they ignore the servlet context path and an
+ * encoded {@code /} stays inside its segment; captured values are then URL-decoded, like {@code @PathVariable}s.
+ */
+final class HttpRouteMatcher {
+
+    private static final UrlPathHelper PATH_HELPER = rawPathHelper();
+
+    private final Node root = new Node();
+    private final int maxVariables;
+
+    HttpRouteMatcher(List<CerbosProperties.Route> routes) {
+        int variables = 0;
+        for (CerbosProperties.Route route : routes) {
+            variables = Math.max(variables, add(route));
+        }
+        this.maxVariables = variables;
+    }
+
+    boolean isEmpty() {
+        return root.routes.isEmpty() && root.literalKeys.isEmpty() && root.variable == null;
+    }
+
+    /**
+     * Returns the first route matching the request, or {@code null} when none does.
+     */
+    Match match(HttpServletRequest request) {
+        return match(request.getMethod(), pathWithinApplication(request));
+    }
+
+    /**
+     * Returns the first route matching {@code path}, which is relative to the application and not yet decoded, or
+     * {@code null} when none does.
+     */
+    Match match(String method, String path) {
+        if (path == null || !path.startsWith("/")) {
+            return null;
+        }
+        int end = path.length() > 1 && path.endsWith("/") ? path.length() - 1 : path.length();
+        return find(root, method, path, 1, end, new String[maxVariables], 0);
+    }
+
+    private Match find(Node node, String method, String path, int start, int end, String[] captures, int captured) {
+        if (start >= end) {
+            for (CompiledRoute route : node.routes) {
+                if (route.method() == null || route.method().equalsIgnoreCase(method)) {
+                    return route.resolve(path, captures);
+                }
+            }
+            return null;
+        }
+        int slash = path.indexOf('/', start);
+        int segmentEnd = slash < 0 || slash > end ? end : slash;
+        int next = segmentEnd == end ? end : segmentEnd + 1;
+        int length = segmentEnd - start;
+        for (int i = 0; i < node.literalKeys.size(); i++) {
+            String literal = node.literalKeys.get(i);
+            if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+                Match match = find(node.literalNodes.get(i), method, path, next, end, captures, captured);
+                if (match != null) {
+                    return match;
+                }
+            }
+        }
+        if (node.variable != null && length > 0) {
+            String segment = decode(path.substring(start, segmentEnd));
+            if (segment == null) {
+                return null;
+            }
+            captures[captured] = segment;
+            return find(node.variable, method, path, next, end, captures, captured + 1);
+        }
+        return null;
+    }
+
+    /**
+     * The request path below the servlet context path, without {@code ;} parameters and not URL-decoded.
+     */
+    static String pathWithinApplication(HttpServletRequest request) {
+        return PATH_HELPER.getPathWithinApplication(request);
+    }
+
+    /**
+     * URL-decodes a captured segment, or returns {@code null} when it is not validly encoded.
+     */
+    private static String decode(String segment) {
+        if (segment.indexOf('%') < 0) {
+            return segment;
+        }
+        try {
+            return UriUtils.decode(segment, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static UrlPathHelper rawPathHelper() {
+        UrlPathHelper helper = new UrlPathHelper();
+        helper.setUrlDecode(false);
+        return helper;
+    }
+
+    private int add(CerbosProperties.Route route) {
+        String template = route.getPath();
+        if (template == null || !template.startsWith("/")) {
+            throw new IllegalArgumentException("Route path must start with '/': " + template);
+        }
+        if (!StringUtils.hasText(route.getResourceKind())) {
+            throw new IllegalArgumentException("Route " + template + " has no resource-kind");
+        }
+        Node node = root;
+        List<String> variableNames = new ArrayList<>();
+        for (String segment : StringUtils.tokenizeToStringArray(template, "/")) {
+            if (segment.startsWith("{") && segment.endsWith("}") && segment.length() > 2) {
+                variableNames.add(segment.substring(1, segment.length() - 1));
+                node = node.variable();
+            } else if (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0 || segment.indexOf('*') >= 0) {
+                throw new IllegalArgumentException(
+                        "Route " + template + " may only use whole-segment {variables}: " + segment);
+            } else {
+                node = node.literal(segment);
+            }
+        }
+        String[] names = variableNames.toArray(String[]::new);
+        String method = StringUtils.hasText(route.getMethod()) ? route.getMethod() : null;
+        String action = StringUtils.hasText(route.getAction()) ? route.getAction() : null;
+        node.routes.add(new CompiledRoute(
+                method, route.getResourceKind(), compileId(route.getResourceId(), template, names), action, names));
+        return names.length;
+    }
+
+    private static Object[] compileId(String idTemplate, String template, String[] names) {
+        if (!StringUtils.hasText(idTemplate)) {
+            return null;
+        }
+        List<Object> parts = new ArrayList<>();
+        int position = 0;
+        while (position < idTemplate.length()) {
+            int open = idTemplate.indexOf('{', position);
+            if (open < 0) {
+                parts.add(idTemplate.substring(position));
+                break;
+            }
+            int close = idTemplate.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated variable in resource-id " + idTemplate);
+            }
+            if (open > position) {
+                parts.add(idTemplate.substring(position, open));
+            }
+            String name = idTemplate.substring(open + 1, close);
+            int index = List.of(names).indexOf(name);
+            if (index < 0) {
+                throw new IllegalArgumentException(
+                        "Resource-id " + idTemplate + " uses {" + name + "}, which route " + template + " lacks");
+            }
+            parts.add(index);
+            position = close + 1;
+        }
+        return parts.toArray();
+    }
+
+    record Match(String kind, String id, String action, Map<String, String> variables) {
+    }
+
+    private record CompiledRoute(String method, String kind, Object[] idParts, String action, String[] variableNames) {
+
+        Match resolve(String path, String[] captures) {
+            Map<String, String> variables = new LinkedHashMap<>((int) (variableNames.length / 0.75f) + 1);
+            for (int i = 0; i < variableNames.length; i++) {
+                variables.put(variableNames[i], captures[i]);
+            }
+            return new Match(kind, resolveId(path, captures), action, variables);
+        }
+
+        private String resolveId(String path, String[] captures) {
+            if (idParts == null) {
+                return path;
+            }
+            if (idParts.length == 1) {
+                return idParts[0] instanceof Integer index ? captures[index] : (String) idParts[0];
+            }
+            StringBuilder id = new StringBuilder();
+            for (Object part : idParts) {
+                id.append(part instanceof Integer index ? captures[index] : (String) part);
+            }
+            return id.toString();
+        }
+    }
+
+    private static final class Node {
+
+        private final List<String> literalKeys = new ArrayList<>(1);
+        private final List<Node> literalNodes = new ArrayList<>(1);
+        private final List<CompiledRoute> routes = new ArrayList<>(1);
+        private Node variable;
+
+        Node literal(String segment) {
+            int index = literalKeys.indexOf(segment);
+            if (index >= 0) {
+                return literalNodes.get(index);
+            }
+            Node child = new Node();
+            literalKeys.add(segment);
+            literalNodes.add(child);
+            return child;
+        }
+
+        Node variable() {
+            if (variable == null) {
+                variable = new Node();
+            }
+            return variable;
+        }
+    }
+}
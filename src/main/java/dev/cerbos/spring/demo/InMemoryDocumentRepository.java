@@ -0,0 +1,59 @@
+package dev.cerbos.spring.demo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps documents on the heap; they are lost on restart.
+ */
+public class InMemoryDocumentRepository implements DocumentRepository {
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final DocumentIndex index;
+
+    public InMemoryDocumentRepository() {
+        this(List.of());
+    }
+
+    public InMemoryDocumentRepository(Collection<String> indexedContentKeys) {
+        this.index = new DocumentIndex(indexedContentKeys);
+    }
+
+    @Override
+    public Optional<Document> findById(String documentId) {
+        return Optional.ofNullable(documents.get(documentId));
+    }
+
+    @Override
+    public List<Document> findAll() {
+        return List.copyOf(documents.values());
+    }
+
+    @Override
+    public Stream<Document> streamAll() {
+        return documents.values().stream();
+    }
+
+    @Override
+    public Document save(Document document) {
+        documents.compute(document.id(), (id, previous) -> {
+            index.update(document);
+            return document;
+        });
+        return document;
+    }
+
+    @Override
+    public DocumentPage findByOwner(String owner, String cursor, int limit) {
+        return index.findByOwner(owner, cursor, limit, this::findById);
+    }
+
+    @Override
+    public DocumentPage findByContent(String key, Object value, String cursor, int limit) {
+        return index.findByContent(key, value, cursor, limit, this::findById);
+    }
+}
@@ -0,0 +1,346 @@
+package dev.cerbos.spring.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+/**
+ * Evaluates Cerbos resource policies in-process, so that simple role and attribute rules are decided without a PDP
+ * call. Policies are read from the YAML files matched by {@code cerbos.local.policies}; only unscoped
+ * {@code default}-version resource policies are used.
+ *
+ * <p>{@link #decide} returns {@code null} whenever the outcome might depend on something the engine does not
+ * understand, and the caller then asks the PDP. That is the case for resource kinds without a local policy, principals
+ * with a principal policy, any rule for the requested action that uses derived roles or a condition
+ * {@link PolicyConditionCompiler} cannot compile, and a deny rule whose condition fails to evaluate. An allow rule whose
+ * condition fails to evaluate does not match. Otherwise the Cerbos rules apply: a matching deny rule wins over any
+ * allow rule, and no matching rule means deny.
+ *
+ * <p>{@link #reload} reads the policy files again and swaps the compiled rules in atomically, so a check sees either
+ * the old or the new policy set, never a mix.
+ */
+public class LocalPolicyEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalPolicyEngine.class);
+    private static final String DEFAULT_VERSION = "default";
+
+    private final List<String> locations;
+    private final AtomicReference<Policies> policies;
+
+    LocalPolicyEngine(Collection<?> documents) {
+        this(List.of(), documents);
+    }
+
+    private LocalPolicyEngine(List<String> locations, Collection<?> documents) {
+        this.locations = List.copyOf(locations);
+        this.policies = new AtomicReference<>(compile(documents));
+    }
+
+    /**
+     * Loads every policy file matched by {@code locations}, which are Spring resource patterns such as
+     * {@code classpath:cerbos/policies/**}{@code /*.yaml}.
+     */
+    public static LocalPolicyEngine load(List<String> locations) {
+        LocalPolicyEngine engine = new LocalPolicyEngine(locations, read(locations));
+        LOGGER.info("Loaded local Cerbos policies for {}", engine.resourceKinds());
+        return engine;
+    }
+
+    /**
+     * Reads the policy files again and replaces the rules with them. When a file cannot be read or compiled the
+     * current rules stay in place and {@code false} is returned.
+     */
+    public boolean reload() {
+        if (locations.isEmpty()) {
+            return false;
+        }
+        Policies reloaded;
+        try {
+            reloaded = compile(read(locations));
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Keeping the current local Cerbos policies, reload failed: {}", ex.toString());
+            return false;
+        }
+        policies.set(reloaded);
+        LOGGER.info("Reloaded local Cerbos policies for {}", reloaded.rules().keySet());
+        return true;
+    }
+
+    private static Policies compile(Collection<?> documents) {
+        Map<String, List<Rule>> compiled = new HashMap<>();
+        Set<String> principals = new HashSet<>();
+        for (Object document : documents) {
+            if (!(document instanceof Map<?, ?> map)) {
+                continue;
+            }
+            if (map.get("principalPolicy") instanceof Map<?, ?> principalPolicy) {
+                principals.add(String.valueOf(principalPolicy.get("principal")));
+            }
+            if (map.get("resourcePolicy") instanceof Map<?, ?> resourcePolicy) {
+                String version = String.valueOf(getOrDefault(resourcePolicy, "version", DEFAULT_VERSION));
+                Object scope = resourcePolicy.get("scope");
+                if (!DEFAULT_VERSION.equals(version) || (scope != null && !scope.toString().isEmpty())) {
+                    continue;
+                }
+                String resource = requireText(resourcePolicy, "resource");
+                if (compiled.put(resource, compileRules(resource, resourcePolicy.get("rules"))) != null) {
+                    throw new IllegalArgumentException("Duplicate resource policy for " + resource);
+                }
+            }
+        }
+        return new Policies(Map.copyOf(compiled), Set.copyOf(principals));
+    }
+
+    private static List<Object> read(List<String> locations) {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+        List<Object> documents = new ArrayList<>();
+        for (String location : locations) {
+            try {
+                for (Resource resource : resolver.getResources(location)) {
+                    try (InputStream in = resource.getInputStream()) {
+                        yaml.loadAll(in).forEach(documents::add);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to read Cerbos policies from " + location, ex);
+            }
+        }
+        return documents;
+    }
+
+    public Set<String> resourceKinds() {
+        return policies.get().rules().keySet();
+    }
+
+    /**
+     * Returns the decision for {@code input} and {@code action}, or {@code null} when it must be left to the PDP.
+     */
+    public Boolean decide(Input input, String action) {
+        Policies current = policies.get();
+        List<Rule> rules = current.rules().get(input.kind());
+        if (rules == null || current.principals().contains(input.principalId())) {
+            return null;
+        }
+        boolean allowed = false;
+        for (Rule rule : rules) {
+            if (!rule.matchesAction(action)) {
+                continue;
+            }
+            if (rule.usesDerivedRoles()) {
+                return null;
+            }
+            if (!rule.matchesRoles(input.roles())) {
+                continue;
+            }
+            if (rule.condition() == null) {
+                return null;
+            }
+            boolean matched;
+            try {
+                matched = rule.condition().test(input);
+            } catch (PolicyConditionCompiler.EvaluationException ex) {
+                if (!rule.allow()) {
+                    return null;
+                }
+                matched = false;
+            }
+            if (!matched) {
+                continue;
+            }
+            if (!rule.allow()) {
+                return false;
+            }
+            allowed = true;
+        }
+        return allowed;
+    }
+
+    Boolean decide(
+            PrincipalSnapshot principal,
+            Map<String, Object> principalAttributes,
+            String kind,
+            String resourceId,
+            Map<String, Object> resourceAttributes,
+            String action) {
+        if (!policies.get().rules().containsKey(kind)) {
+            return null;
+        }
+        return decide(
+                new Input(principal.id(), principal.roles(), principalAttributes, kind, resourceId, resourceAttributes),
+                action);
+    }
+
+    private static List<Rule> compileRules(String resource, Object rules) {
+        if (!(rules instanceof List<?> list)) {
+            return List.of();
+        }
+        List<Rule> compiled = new ArrayList<>(list.size());
+        for (Object entry : list) {
+            if (!(entry instanceof Map<?, ?> rule)) {
+                throw new IllegalArgumentException("Invalid rule in resource policy for " + resource);
+            }
+            List<String> actions = strings(rule.get("actions"));
+            Set<String> exactActions = Set.copyOf(actions.stream().filter(action -> !action.contains("*")).toList());
+            List<Pattern> actionGlobs = actions.stream()
+                    .filter(action -> action.contains("*"))
+                    .map(LocalPolicyEngine::actionPattern)
+                    .toList();
+            List<String> roles = strings(rule.get("roles"));
+            boolean usesDerivedRoles = !strings(rule.get("derivedRoles")).isEmpty();
+            boolean allow = switch (String.valueOf(rule.get("effect"))) {
+                case "EFFECT_ALLOW" -> true;
+                case "EFFECT_DENY" -> false;
+                default -> throw new IllegalArgumentException(
+                        "Invalid effect " + rule.get("effect") + " in resource policy for " + resource);
+            };
+            Predicate<Input> condition = compileCondition(resource, rule.get("condition"));
+            compiled.add(new Rule(exactActions, actionGlobs, Set.copyOf(roles), usesDerivedRoles, allow, condition));
+        }
+        return List.copyOf(compiled);
+    }
+
+    /**
+     * Returns the compiled condition, an always-true predicate when there is none, or {@code null} when it is not
+     * supported.
+     */
+    private static Predicate<Input> compileCondition(String resource, Object condition) {
+        if (condition == null) {
+            return input -> true;
+        }
+        try {
+            if (condition instanceof Map<?, ?> map && map.get("match") != null) {
+                return compileMatch(map.get("match"));
+            }
+            throw new UnsupportedOperationException("Only match conditions are supported");
+        } catch (UnsupportedOperationException ex) {
+            LOGGER.info("Leaving a rule of {} to the PDP: {}", resource, ex.getMessage());
+            return null;
+        }
+    }
+
+    private static Predicate<Input> compileMatch(Object match) {
+        if (!(match instanceof Map<?, ?> map) || map.size() != 1) {
+            throw new UnsupportedOperationException("Invalid match block: " + match);
+        }
+        Map.Entry<?, ?> entry = map.entrySet().iterator().next();
+        String operator = String.valueOf(entry.getKey());
+        if (operator.equals("expr")) {
+            return PolicyConditionCompiler.compile(String.valueOf(entry.getValue()));
+        }
+        if (!(entry.getValue() instanceof Map<?, ?> group) || !(group.get("of") instanceof List<?> of)) {
+            throw new UnsupportedOperationException("Invalid match block: " + match);
+        }
+        List<Predicate<Input>> operands = of.stream().map(LocalPolicyEngine::compileMatch).toList();
+        return switch (operator) {
+            case "all" -> PolicyConditionCompiler.all(operands);
+            case "any" -> PolicyConditionCompiler.any(operands);
+            case "none" -> PolicyConditionCompiler.any(operands).negate();
+            default -> throw new UnsupportedOperationException("Unsupported match operator: " + operator);
+        };
+    }
+
+    /**
+     * Cerbos action globs: {@code *} alone matches any action, otherwise it matches within one {@code :}-separated
+     * segment.
+     */
+    private static Pattern actionPattern(String action) {
+        if (action.equals("*")) {
+            return Pattern.compile(".*");
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String literal : action.split("\\*", -1)) {
+            if (!regex.isEmpty()) {
+                regex.append("[^:]*");
+            }
+            regex.append(Pattern.quote(literal));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static List<String> strings(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+
+    private static Object getOrDefault(Map<?, ?> map, String key, Object fallback) {
+        Object value = map.get(key);
+        return value != null ? value : fallback;
+    }
+
+    private static String requireText(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("Resource policy is missing '" + key + "'");
+        }
+        return value.toString();
+    }
+
+    /**
+     * The principal and resource a local decision is made for.
+     */
+    public record Input(
+            String principalId,
+            List<String> roles,
+            Map<String, Object> principalAttributes,
+            String kind,
+            String resourceId,
+            Map<String, Object> resourceAttributes) {
+    }
+
+    private record Policies(Map<String, List<Rule>> rules, Set<String> principals) {
+    }
+
+    private record Rule(
+            Set<String> actions,
+            List<Pattern> actionGlobs,
+            Set<String> roles,
+            boolean usesDerivedRoles,
+            boolean allow,
+            Predicate<Input> condition) {
+
+        boolean matchesAction(String action) {
+            if (actions.contains(action)) {
+                return true;
+            }
+            for (Pattern pattern : actionGlobs) {
+                if (pattern.matcher(action).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean matchesRoles(List<String> principalRoles) {
+            if (roles.contains("*")) {
+                return true;
+            }
+            for (String role : principalRoles) {
+                if (roles.contains(role)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package dev.cerbos.spring.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Durable document store built on an append-only log of memory-mapped segment files. Every save appends a record
+ * holding the document as JSON; an in-memory index maps each document id to its latest record, and
+ * {@link #findById} decodes the document straight from the mapped file, so document content never stays on the heap.
+ *
+ * <p>A record is its body length, a CRC32 of the body, and a body of the id length, the id and the JSON. On startup
+ * the segments are scanned in order to rebuild the index; only headers and checksums are read. A record cut short by a
+ * crash fails its checksum and ends the scan, and the space it took is reused. Writes reach the page cache
+ * immediately and are forced to disk when a segment fills up and on shutdown.
+ *
+ * <p>The owner and content indexes of {@link DocumentIndex} are rebuilt during recovery by decoding each live document
+ * once.
+ *
+ * <p>Sealed segments whose overwritten records make up at least {@code compaction-threshold} of their size are
+ * compacted in the background: their live records are appended again and the segment file is deleted.
+ */
+public class LogDocumentRepository implements DocumentRepository, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogDocumentRepository.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int BODY_OFFSET = 8;
+    private static final int ID_OFFSET = BODY_OFFSET + 2;
+    private static final byte[] ZEROS = new byte[8192];
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final DocumentIndex secondaryIndex;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+    private volatile Segment active;
+    private int nextSegmentId;
+    private boolean closed;
+
+    public LogDocumentRepository(DocumentStoreProperties config, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(config.getDirectory());
+        long size = config.getSegmentSize().toBytes();
+        if (size <= ID_OFFSET || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("documents.store.segment-size must be between 11B and 2GB");
+        }
+        this.segmentSize = (int) size;
+        this.compactionThreshold = config.getCompactionThreshold();
+        this.secondaryIndex = new DocumentIndex(config.getIndexedContentKeys());
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open document log in " + directory, ex);
+        }
+        long interval = config.getCompactionInterval().toNanos();
+        if (interval > 0) {
+            this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "document-log-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly, interval, interval, TimeUnit.NANOSECONDS);
+        } else {
+            this.compactor = null;
+        }
+    }
+
+    @Override
+    public Optional<Document> findById(String documentId) {
+        Location location = index.get(documentId);
+        return location != null ? Optional.of(read(location)) : Optional.empty();
+    }
+
+    @Override
+    public List<Document> findAll() {
+        return index.values().stream().map(this::read).toList();
+    }
+
+    @Override
+    public Stream<Document> streamAll() {
+        return index.values().stream().map(this::read);
+    }
+
+    @Override
+    public Document save(Document document) {
+        saveAll(List.of(document));
+        return document;
+    }
+
+    /**
+     * Encodes every document first, then appends them all under a single acquisition of the write lock.
+     */
+    @Override
+    public List<Document> saveAll(List<Document> documents) {
+        List<ByteBuffer> records = documents.stream().map(this::encode).toList();
+        writeLock.lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                append(document.id(), records.get(i));
+                secondaryIndex.update(document);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write documents", ex);
+        } finally {
+            writeLock.unlock();
+        }
+        return documents;
+    }
+
+    private ByteBuffer encode(Document document) {
+        byte[] id = document.id().getBytes(StandardCharsets.UTF_8);
+        if (id.length > 0xFFFF) {
+            throw new IllegalArgumentException("Document id is too long");
+        }
+        ByteBuffer record;
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(document);
+            record = ByteBuffer.allocate(ID_OFFSET + id.length + json.length);
+            record.putInt(record.capacity() - BODY_OFFSET)
+                    .putInt(0)
+                    .putShort((short) id.length)
+                    .put(id)
+                    .put(json)
+                    .flip();
+            record.putInt(CHECKSUM_OFFSET, checksum(record, BODY_OFFSET, record.capacity() - BODY_OFFSET));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to encode document " + document.id(), ex);
+        }
+        return record;
+    }
+
+    @Override
+    public DocumentPage findByOwner(String owner, String cursor, int limit) {
+        return secondaryIndex.findByOwner(owner, cursor, limit, this::findById);
+    }
+
+    @Override
+    public DocumentPage findByContent(String key, Object value, String cursor, int limit) {
+        return secondaryIndex.findByContent(key, value, cursor, limit, this::findById);
+    }
+
+    /**
+     * Number of documents stored.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Stops compaction and seals the active segment. Writes attempted afterwards fail.
+     */
+    @Override
+    public void destroy() throws IOException {
+        writeLock.lock();
+        try {
+            closed = true;
+        } finally {
+            writeLock.unlock();
+        }
+        if (compactor != null) {
+            compactor.shutdownNow();
+            try {
+                if (!compactor.awaitTermination(10, TimeUnit.SECONDS)) {
+                    LOGGER.warn("Document log compaction did not stop within 10 seconds");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeLock.lock();
+        try {
+            seal(active);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records of every sealed segment that has reached the compaction threshold, then deletes it.
+     */
+    void compact() throws IOException {
+        for (Segment segment : segments) {
+            if (segment == active) {
+                continue;
+            }
+            int size = segment.position;
+            double garbage = size == 0 ? 1 : 1 - (double) segment.liveBytes / size;
+            if (garbage >= compactionThreshold) {
+                compact(segment);
+            }
+        }
+    }
+
+    List<Path> segmentFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private void compact(Segment segment) throws IOException {
+        int moved = 0;
+        int position = 0;
+        while (position < segment.position) {
+            int length = BODY_OFFSET + segment.buffer.getInt(position);
+            String id = readId(segment.buffer, position);
+            writeLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                Location location = index.get(id);
+                if (location != null && location.segment() == segment && location.offset() == position) {
+                    append(id, segment.buffer.slice(position, length));
+                    moved++;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            position += length;
+        }
+        // The moved records must be durable before the only other durable copy goes away.
+        writeLock.lock();
+        try {
+            active.buffer.force();
+        } finally {
+            writeLock.unlock();
+        }
+        segments.remove(segment);
+        // Readers that looked up a record in this segment keep reading its mapping after the file is gone.
+        Files.deleteIfExists(segment.file);
+        LOGGER.info("Compacted document log segment {}, moving {} live documents", segment.file.getFileName(), moved);
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Document log compaction failed", ex);
+        }
+    }
+
+    /**
+     * Appends {@code record} to the active segment, rolling to a new one when it does not fit. Callers hold the write
+     * lock.
+     */
+    private void append(String id, ByteBuffer record) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Document log in " + directory + " is closed");
+        }
+        int length = record.remaining();
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Document " + id + " is larger than documents.store.segment-size");
+        }
+        Segment segment = active;
+        if (segment.buffer.capacity() - segment.position < length) {
+            seal(segment);
+            segment = openSegment(nextSegmentId++, segmentSize);
+            segments.add(segment);
+            active = segment;
+        }
+        segment.buffer.put(segment.position, record, record.position(), length);
+        Location location = new Location(segment, segment.position, length);
+        segment.position += length;
+        segment.liveBytes += length;
+        Location previous = index.put(id, location);
+        if (previous != null) {
+            previous.segment().liveBytes -= previous.length();
+        }
+    }
+
+    private Document read(Location location) {
+        ByteBuffer buffer = location.segment().buffer;
+        int idLength = Short.toUnsignedInt(buffer.getShort(location.offset() + BODY_OFFSET));
+        int jsonOffset = location.offset() + ID_OFFSET + idLength;
+        ByteBuffer json = buffer.slice(jsonOffset, location.offset() + location.length() - jsonOffset);
+        try {
+            return objectMapper.readValue(new ByteBufferBackedInputStream(json), Document.class);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to decode document at " + location.offset() + " in "
+                    + location.segment().file, ex);
+        }
+    }
+
+    private void recover() throws IOException {
+        long started = System.nanoTime();
+        List<Path> files = segmentFiles();
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            String name = file.getFileName().toString();
+            int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            boolean last = i == files.size() - 1;
+            int size = (int) Files.size(file);
+            Segment segment = openSegment(id, last ? Math.max(segmentSize, size) : size);
+            scan(segment, last);
+            segments.add(segment);
+            nextSegmentId = id + 1;
+        }
+        if (segments.isEmpty()) {
+            segments.add(openSegment(nextSegmentId++, segmentSize));
+        }
+        active = segments.get(segments.size() - 1);
+        index.values().forEach(location -> secondaryIndex.update(read(location)));
+        LOGGER.info("Recovered {} documents from {} document log segments in {} ms", index.size(), segments.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Indexes the valid records of {@code segment}. Anything after the first invalid record is cleared in the last
+     * segment, which stays open for writing, and cut off in the others.
+     */
+    private void scan(Segment segment, boolean last) throws IOException {
+        MappedByteBuffer buffer = segment.buffer;
+        int limit = buffer.capacity();
+        int position = 0;
+        while (position + ID_OFFSET <= limit) {
+            int bodyLength = buffer.getInt(position);
+            if (bodyLength < ID_OFFSET - BODY_OFFSET || bodyLength > limit - position - BODY_OFFSET
+                    || checksum(buffer, position + BODY_OFFSET, bodyLength) != buffer.getInt(position + CHECKSUM_OFFSET)
+                    || Short.toUnsignedInt(buffer.getShort(position + BODY_OFFSET)) > bodyLength - 2) {
+                break;
+            }
+            int length = BODY_OFFSET + bodyLength;
+            Location previous = index.put(readId(buffer, position), new Location(segment, position, length));
+            if (previous != null) {
+                previous.segment().liveBytes -= previous.length();
+            }
+            segment.liveBytes += length;
+            position += length;
+        }
+        segment.position = position;
+        if (position + 4 <= limit && buffer.getInt(position) != 0) {
+            LOGGER.warn("Discarding an incomplete record at {} in {}", position, segment.file.getFileName());
+            if (last) {
+                for (int offset = position; offset < limit; offset += ZEROS.length) {
+                    buffer.put(offset, ZEROS, 0, Math.min(ZEROS.length, limit - offset));
+                }
+            } else {
+                seal(segment);
+            }
+        }
+    }
+
+    private Segment openSegment(int id, int size) throws IOException {
+        Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * Forces {@code segment} to disk and trims its file to the records written.
+     */
+    private static void seal(Segment segment) throws IOException {
+        segment.buffer.force();
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.WRITE)) {
+            channel.truncate(segment.position);
+        }
+    }
+
+    private static String readId(ByteBuffer buffer, int offset) {
+        int idLength = Short.toUnsignedInt(buffer.getShort(offset + BODY_OFFSET));
+        byte[] id = new byte[idLength];
+        buffer.get(offset + ID_OFFSET, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private record Location(Segment segment, int offset, int length) {
+    }
+
+    /**
+     * A mapped segment file. {@code position} and {@code liveBytes} are only changed under the write lock or during
+     * recovery.
+     */
+    private static final class Segment {
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private volatile int position;
+        private volatile long liveBytes;
+
+        Segment(Path file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.cerbos.spring.demo;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads newline-delimited JSON one line at a time into a reused buffer, so memory stays bounded by
+ * {@code maxLineBytes} whatever the size of the input. Blank lines are skipped; longer lines are consumed and reported
+ * as too long.
+ */
+final class NdjsonReader {
+
+    private final InputStream input;
+    private final int maxLineBytes;
+    private byte[] buffer = new byte[8192];
+    private int lineNumber;
+
+    NdjsonReader(InputStream input, int maxLineBytes) {
+        this.input = new BufferedInputStream(input);
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /**
+     * Returns the next non-blank line, or {@code null} at the end of the input. The returned bytes are only valid
+     * until the next call.
+     */
+    Line next() throws IOException {
+        while (true) {
+            int length = 0;
+            boolean tooLong = false;
+            boolean read = false;
+            int next;
+            while ((next = input.read()) != -1 && next != '\n') {
+                read = true;
+                if (length == maxLineBytes) {
+                    tooLong = true;
+                    continue;
+                }
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(maxLineBytes, buffer.length * 2L));
+                }
+                buffer[length++] = (byte) next;
+            }
+            if (next == -1 && !read) {
+                return null;
+            }
+            lineNumber++;
+            while (length > 0 && Character.isWhitespace(buffer[length - 1])) {
+                length--;
+            }
+            if (length > 0 || tooLong) {
+                return new Line(lineNumber, buffer, tooLong ? 0 : length, tooLong);
+            }
+        }
+    }
+
+    record Line(int number, byte[] bytes, int length, boolean tooLong) {
+    }
+}
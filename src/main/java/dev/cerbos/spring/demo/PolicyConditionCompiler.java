@@ -0,0 +1,363 @@
+package dev.cerbos.spring.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compiles the subset of CEL used by simple Cerbos policy conditions into an in-memory predicate: the logical operators
+ * ({@code &&}, {@code ||}, {@code !}), comparisons ({@code ==}, {@code !=}, {@code <}, {@code <=}, {@code >},
+ * {@code >=}), {@code in}, parentheses, string, number, boolean and list literals, and the request paths
+ * {@code request.principal.id|roles|attr.*} and {@code request.resource.id|kind|attr.*} with their {@code P} and
+ * {@code R} shorthands. Anything else, such as functions, macros or variables, is rejected with an
+ * {@link UnsupportedOperationException} so the check can be left to the PDP.
+ *
+ * <p>Reading a missing attribute or applying an operator to the wrong type is an error, which the compiled predicate
+ * throws as an {@link EvaluationException}. As in CEL, {@code ||} and {@code &&} absorb an error on either side when
+ * the other side decides the result on its own: {@code error || true} is {@code true} and {@code error && false} is
+ * {@code false}.
+ */
+final class PolicyConditionCompiler {
+
+    private PolicyConditionCompiler() {
+    }
+
+    static Predicate<LocalPolicyEngine.Input> compile(String expression) {
+        Parser parser = new Parser(tokenize(expression));
+        Function<LocalPolicyEngine.Input, Object> compiled = parser.parseOr();
+        parser.expectEnd();
+        return input -> bool(compiled.apply(input));
+    }
+
+    /**
+     * CEL's {@code ||} over {@code operands}: true if any operand is true, even when others fail.
+     */
+    static Predicate<LocalPolicyEngine.Input> any(List<Predicate<LocalPolicyEngine.Input>> operands) {
+        return input -> {
+            EvaluationException error = null;
+            for (Predicate<LocalPolicyEngine.Input> operand : operands) {
+                try {
+                    if (operand.test(input)) {
+                        return true;
+                    }
+                } catch (EvaluationException ex) {
+                    error = ex;
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            return false;
+        };
+    }
+
+    /**
+     * CEL's {@code &&} over {@code operands}: false if any operand is false, even when others fail.
+     */
+    static Predicate<LocalPolicyEngine.Input> all(List<Predicate<LocalPolicyEngine.Input>> operands) {
+        return any(operands.stream().map(Predicate::negate).toList()).negate();
+    }
+
+    private static final class Parser {
+
+        private final List<String> tokens;
+        private int position;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        Function<LocalPolicyEngine.Input, Object> parseOr() {
+            Function<LocalPolicyEngine.Input, Object> left = parseAnd();
+            while (accept("||")) {
+                Function<LocalPolicyEngine.Input, Object> first = left;
+                Function<LocalPolicyEngine.Input, Object> second = parseAnd();
+                Predicate<LocalPolicyEngine.Input> or = any(List.of(
+                        input -> bool(first.apply(input)), input -> bool(second.apply(input))));
+                left = or::test;
+            }
+            return left;
+        }
+
+        Function<LocalPolicyEngine.Input, Object> parseAnd() {
+            Function<LocalPolicyEngine.Input, Object> left = parseNot();
+            while (accept("&&")) {
+                Function<LocalPolicyEngine.Input, Object> first = left;
+                Function<LocalPolicyEngine.Input, Object> second = parseNot();
+                Predicate<LocalPolicyEngine.Input> and = all(List.of(
+                        input -> bool(first.apply(input)), input -> bool(second.apply(input))));
+                left = and::test;
+            }
+            return left;
+        }
+
+        Function<LocalPolicyEngine.Input, Object> parseNot() {
+            if (accept("!")) {
+                Function<LocalPolicyEngine.Input, Object> operand = parseNot();
+                return input -> !bool(operand.apply(input));
+            }
+            return parseRelation();
+        }
+
+        Function<LocalPolicyEngine.Input, Object> parseRelation() {
+            Function<LocalPolicyEngine.Input, Object> left = parsePrimary();
+            String operator = peek();
+            if (operator == null) {
+                return left;
+            }
+            switch (operator) {
+                case "==", "!=", "<", "<=", ">", ">=", "in" -> position++;
+                default -> {
+                    return left;
+                }
+            }
+            Function<LocalPolicyEngine.Input, Object> right = parsePrimary();
+            return switch (operator) {
+                case "==" -> input -> QueryPlanCompiler.valuesEqual(left.apply(input), right.apply(input));
+                case "!=" -> input -> !QueryPlanCompiler.valuesEqual(left.apply(input), right.apply(input));
+                case "in" -> input -> {
+                    Object element = left.apply(input);
+                    Object container = right.apply(input);
+                    if (!(container instanceof List<?>) && !(container instanceof Map<?, ?>)) {
+                        throw new EvaluationException();
+                    }
+                    return QueryPlanCompiler.contains(container, element);
+                };
+                default -> {
+                    String comparison = switch (operator) {
+                        case "<" -> "lt";
+                        case "<=" -> "le";
+                        case ">" -> "gt";
+                        default -> "ge";
+                    };
+                    yield input -> QueryPlanCompiler.compare(comparison, left.apply(input), right.apply(input));
+                }
+            };
+        }
+
+        Function<LocalPolicyEngine.Input, Object> parsePrimary() {
+            String token = next();
+            if (token.equals("(")) {
+                Function<LocalPolicyEngine.Input, Object> inner = parseOr();
+                expect(")");
+                return inner;
+            }
+            if (token.equals("[")) {
+                List<Function<LocalPolicyEngine.Input, Object>> elements = new ArrayList<>();
+                if (!accept("]")) {
+                    do {
+                        elements.add(parsePrimary());
+                    } while (accept(","));
+                    expect("]");
+                }
+                return input -> elements.stream().map(element -> element.apply(input)).toList();
+            }
+            if (token.startsWith("\"") || token.startsWith("'")) {
+                String literal = token.substring(1);
+                return input -> literal;
+            }
+            if (token.equals("-") || Character.isDigit(token.charAt(0))) {
+                Object number = parseNumber(token.equals("-") ? "-" + next() : token);
+                return input -> number;
+            }
+            switch (token) {
+                case "true" -> {
+                    return input -> Boolean.TRUE;
+                }
+                case "false" -> {
+                    return input -> Boolean.FALSE;
+                }
+                case "null" -> {
+                    return input -> null;
+                }
+                default -> {
+                    return parsePath(token);
+                }
+            }
+        }
+
+        private Function<LocalPolicyEngine.Input, Object> parsePath(String first) {
+            if (!Character.isJavaIdentifierStart(first.charAt(0))) {
+                throw new UnsupportedOperationException("Unexpected token in condition: " + first);
+            }
+            List<String> path = new ArrayList<>();
+            path.add(first);
+            while (accept(".")) {
+                path.add(next());
+            }
+            if ("(".equals(peek()) || "[".equals(peek())) {
+                throw new UnsupportedOperationException("Functions and indexing are not supported: " + path);
+            }
+            List<String> canonical = new ArrayList<>();
+            switch (path.get(0)) {
+                case "R" -> canonical.addAll(List.of("request", "resource"));
+                case "P" -> canonical.addAll(List.of("request", "principal"));
+                case "request" -> canonical.add("request");
+                default -> throw new UnsupportedOperationException("Unsupported condition variable: " + path);
+            }
+            canonical.addAll(path.subList(1, path.size()));
+            if (canonical.size() < 3) {
+                throw new UnsupportedOperationException("Unsupported condition variable: " + path);
+            }
+            String subject = canonical.get(1);
+            String field = canonical.get(2);
+            List<String> attributePath = canonical.subList(3, canonical.size());
+            if (field.equals("attr") && !attributePath.isEmpty() && subject.equals("resource")) {
+                return input -> lookup(input.resourceAttributes(), attributePath);
+            }
+            if (field.equals("attr") && !attributePath.isEmpty() && subject.equals("principal")) {
+                return input -> lookup(input.principalAttributes(), attributePath);
+            }
+            if (attributePath.isEmpty()) {
+                switch (subject + "." + field) {
+                    case "resource.id" -> {
+                        return LocalPolicyEngine.Input::resourceId;
+                    }
+                    case "resource.kind" -> {
+                        return LocalPolicyEngine.Input::kind;
+                    }
+                    case "principal.id" -> {
+                        return LocalPolicyEngine.Input::principalId;
+                    }
+                    case "principal.roles" -> {
+                        return LocalPolicyEngine.Input::roles;
+                    }
+                    default -> {
+                        // falls through to the rejection below
+                    }
+                }
+            }
+            throw new UnsupportedOperationException("Unsupported condition variable: " + String.join(".", path));
+        }
+
+        private boolean accept(String token) {
+            if (token.equals(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw new UnsupportedOperationException("Expected '" + token + "' in condition");
+            }
+        }
+
+        void expectEnd() {
+            if (position != tokens.size()) {
+                throw new UnsupportedOperationException("Unexpected token in condition: " + tokens.get(position));
+            }
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private String next() {
+            if (position >= tokens.size()) {
+                throw new UnsupportedOperationException("Unexpected end of condition");
+            }
+            return tokens.get(position++);
+        }
+    }
+
+    private static Object lookup(Map<String, Object> attributes, List<String> path) {
+        Object current = attributes;
+        for (String key : path) {
+            if (!(current instanceof Map<?, ?> map) || !map.containsKey(key)) {
+                throw new EvaluationException();
+            }
+            current = map.get(key);
+        }
+        return current;
+    }
+
+    private static boolean bool(Object value) {
+        if (value instanceof Boolean booleanValue) {
+            return booleanValue;
+        }
+        throw new EvaluationException();
+    }
+
+    private static Object parseNumber(String token) {
+        try {
+            if (token.contains(".") || token.contains("e") || token.contains("E")) {
+                return Double.parseDouble(token);
+            }
+            return Long.parseLong(token);
+        } catch (NumberFormatException ex) {
+            throw new UnsupportedOperationException("Invalid number in condition: " + token, ex);
+        }
+    }
+
+    /**
+     * Splits an expression into tokens. String literals are returned with their opening quote and without escapes, so
+     * they cannot be confused with identifiers or operators.
+     */
+    static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"' || c == '\'') {
+                StringBuilder literal = new StringBuilder().append(c);
+                int j = i + 1;
+                while (j < expression.length() && expression.charAt(j) != c) {
+                    char ch = expression.charAt(j);
+                    if (ch == '\\' && j + 1 < expression.length()) {
+                        ch = expression.charAt(++j);
+                    }
+                    literal.append(ch);
+                    j++;
+                }
+                if (j >= expression.length()) {
+                    throw new UnsupportedOperationException("Unterminated string in condition");
+                }
+                tokens.add(literal.toString());
+                i = j + 1;
+            } else if (Character.isDigit(c)) {
+                int j = i;
+                while (j < expression.length()
+                        && (Character.isLetterOrDigit(expression.charAt(j)) || expression.charAt(j) == '.')) {
+                    j++;
+                }
+                tokens.add(expression.substring(i, j));
+                i = j;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int j = i;
+                while (j < expression.length() && Character.isJavaIdentifierPart(expression.charAt(j))) {
+                    j++;
+                }
+                tokens.add(expression.substring(i, j));
+                i = j;
+            } else {
+                String pair = i + 1 < expression.length() ? expression.substring(i, i + 2) : "";
+                if (List.of("==", "!=", "<=", ">=", "&&", "||").contains(pair)) {
+                    tokens.add(pair);
+                    i += 2;
+                } else if ("!<>()[],.-".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    throw new UnsupportedOperationException("Unsupported character in condition: " + c);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A condition that could not be evaluated, such as one reading a missing attribute.
+     */
+    static final class EvaluationException extends RuntimeException {
+
+        EvaluationException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package dev.cerbos.spring.demo;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identifies a Cerbos principal by id, roles and attributes; checks with equal keys can share a single request.
+ */
+record PrincipalKey(String id, List<String> roles, Map<String, Object> attributes) {
+}
@@ -0,0 +1,100 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.sdk.builders.AttributeValue;
+import dev.cerbos.sdk.builders.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * The Cerbos roles and attributes derived from an {@link Authentication}, built and converted once so that every check
+ * made with the same authentication during a request only merges in its own additional attributes.
+ */
+final class PrincipalSnapshot {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final String id;
+    private final List<String> roles;
+    private final String[] roleArray;
+    private final Map<String, Object> attributes;
+    private final Map<String, AttributeValue> convertedAttributes;
+
+    private PrincipalSnapshot(String id, List<String> roles, Map<String, Object> attributes) {
+        this.id = id;
+        this.roles = roles;
+        this.roleArray = roles.toArray(String[]::new);
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.convertedAttributes = Collections.unmodifiableMap(AttributeValueConverter.fromObjectMap(attributes));
+    }
+
+    static PrincipalSnapshot of(Authentication authentication) {
+        List<String> roles = extractRoles(authentication.getAuthorities());
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("roles", roles);
+        if (authentication.getPrincipal() instanceof UserDetails userDetails) {
+            attributes.put("accountNonExpired", userDetails.isAccountNonExpired());
+            attributes.put("accountNonLocked", userDetails.isAccountNonLocked());
+            attributes.put("credentialsNonExpired", userDetails.isCredentialsNonExpired());
+            attributes.put("enabled", userDetails.isEnabled());
+        }
+        return new PrincipalSnapshot(authentication.getName(), roles, attributes);
+    }
+
+    String id() {
+        return id;
+    }
+
+    List<String> roles() {
+        return roles;
+    }
+
+    /**
+     * Returns the snapshot attributes overlaid with {@code additional}, without copying when there is nothing to add.
+     */
+    Map<String, Object> attributes(Map<String, Object> additional) {
+        if (additional == null || additional.isEmpty()) {
+            return attributes;
+        }
+        Map<String, Object> merged = new LinkedHashMap<>(attributes);
+        merged.putAll(additional);
+        return merged;
+    }
+
+    Principal toPrincipal(Map<String, Object> additional) {
+        Principal principal = Principal.newInstance(id, roleArray);
+        if (additional == null || additional.isEmpty()) {
+            principal.withAttributes(convertedAttributes);
+        } else {
+            Map<String, AttributeValue> merged = new LinkedHashMap<>(convertedAttributes);
+            merged.putAll(AttributeValueConverter.fromObjectMap(additional));
+            principal.withAttributes(merged);
+        }
+        return principal;
+    }
+
+    PrincipalKey toKey(Map<String, Object> mergedAttributes) {
+        return new PrincipalKey(id, roles, mergedAttributes);
+    }
+
+    private static List<String> extractRoles(Collection<? extends GrantedAuthority> authorities) {
+        if (authorities == null || authorities.isEmpty()) {
+            return List.of();
+        }
+        List<String> roles = new ArrayList<>(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            String role = authority.getAuthority();
+            if (role == null || role.isBlank()) {
+                continue;
+            }
+            roles.add(role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role);
+        }
+        return List.copyOf(roles);
+    }
+}
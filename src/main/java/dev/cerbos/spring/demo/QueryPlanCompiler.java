@@ -0,0 +1,161 @@
+package dev.cerbos.spring.demo;
+
+import com.google.protobuf.Value;
+import dev.cerbos.api.v1.engine.Engine.PlanResourcesFilter.Expression;
+import dev.cerbos.api.v1.engine.Engine.PlanResourcesFilter.Expression.Operand;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Compiles the condition of a conditional {@code PlanResources} response into an in-memory predicate. Supports the
+ * logical operators ({@code and}, {@code or}, {@code not}), comparisons ({@code eq}, {@code ne}, {@code lt},
+ * {@code le}, {@code gt}, {@code ge}) and {@code in} over variables and literal values. Anything else is rejected with
+ * an {@link UnsupportedOperationException} so callers can fall back to batched checks.
+ */
+final class QueryPlanCompiler {
+
+    private QueryPlanCompiler() {
+    }
+
+    /**
+     * @param condition the plan condition
+     * @param variables maps a plan variable such as {@code request.resource.attr.owner} to an accessor on candidates,
+     *     throwing {@link UnsupportedOperationException} for variables it cannot resolve
+     */
+    static <T> Predicate<T> compile(Operand condition, Function<String, Function<T, Object>> variables) {
+        return compilePredicate(condition, variables);
+    }
+
+    private static <T> Predicate<T> compilePredicate(Operand operand, Function<String, Function<T, Object>> variables) {
+        switch (operand.getNodeCase()) {
+            case VALUE -> {
+                boolean constant = Boolean.TRUE.equals(toJava(operand.getValue()));
+                return candidate -> constant;
+            }
+            case VARIABLE -> {
+                Function<T, Object> accessor = variables.apply(operand.getVariable());
+                return candidate -> Boolean.TRUE.equals(accessor.apply(candidate));
+            }
+            case EXPRESSION -> {
+                return compileExpression(operand.getExpression(), variables);
+            }
+            default -> throw new UnsupportedOperationException("Empty plan operand");
+        }
+    }
+
+    private static <T> Predicate<T> compileExpression(Expression expression, Function<String, Function<T, Object>> variables) {
+        List<Operand> operands = expression.getOperandsList();
+        String operator = expression.getOperator();
+        switch (operator) {
+            case "and" -> {
+                return operands.stream()
+                        .map(operand -> compilePredicate(operand, variables))
+                        .reduce(candidate -> true, Predicate::and);
+            }
+            case "or" -> {
+                return operands.stream()
+                        .map(operand -> compilePredicate(operand, variables))
+                        .reduce(candidate -> false, Predicate::or);
+            }
+            case "not" -> {
+                requireArity(operator, operands, 1);
+                return compilePredicate(operands.get(0), variables).negate();
+            }
+            case "eq", "ne", "lt", "le", "gt", "ge", "in" -> {
+                requireArity(operator, operands, 2);
+                Function<T, Object> left = compileValue(operands.get(0), variables);
+                Function<T, Object> right = compileValue(operands.get(1), variables);
+                return switch (operator) {
+                    case "eq" -> candidate -> valuesEqual(left.apply(candidate), right.apply(candidate));
+                    case "ne" -> candidate -> !valuesEqual(left.apply(candidate), right.apply(candidate));
+                    case "in" -> candidate -> contains(right.apply(candidate), left.apply(candidate));
+                    default -> candidate -> compare(operator, left.apply(candidate), right.apply(candidate));
+                };
+            }
+            default -> throw new UnsupportedOperationException("Unsupported plan operator: " + operator);
+        }
+    }
+
+    private static <T> Function<T, Object> compileValue(Operand operand, Function<String, Function<T, Object>> variables) {
+        switch (operand.getNodeCase()) {
+            case VALUE -> {
+                Object constant = toJava(operand.getValue());
+                return candidate -> constant;
+            }
+            case VARIABLE -> {
+                return variables.apply(operand.getVariable());
+            }
+            case EXPRESSION -> {
+                Predicate<T> predicate = compileExpression(operand.getExpression(), variables);
+                return predicate::test;
+            }
+            default -> throw new UnsupportedOperationException("Empty plan operand");
+        }
+    }
+
+    private static void requireArity(String operator, List<Operand> operands, int expected) {
+        if (operands.size() != expected) {
+            throw new UnsupportedOperationException(
+                    "Operator " + operator + " expects " + expected + " operands but got " + operands.size());
+        }
+    }
+
+    static boolean valuesEqual(Object left, Object right) {
+        if (left instanceof Number leftNumber && right instanceof Number rightNumber) {
+            return Double.compare(leftNumber.doubleValue(), rightNumber.doubleValue()) == 0;
+        }
+        return Objects.equals(left, right);
+    }
+
+    static boolean contains(Object container, Object element) {
+        if (container instanceof Collection<?> collection) {
+            return collection.stream().anyMatch(item -> valuesEqual(item, element));
+        }
+        if (container instanceof Map<?, ?> map) {
+            return map.containsKey(element);
+        }
+        return false;
+    }
+
+    static boolean compare(String operator, Object left, Object right) {
+        int result;
+        if (left instanceof Number leftNumber && right instanceof Number rightNumber) {
+            result = Double.compare(leftNumber.doubleValue(), rightNumber.doubleValue());
+        } else if (left instanceof String leftString && right instanceof String rightString) {
+            result = leftString.compareTo(rightString);
+        } else {
+            return false;
+        }
+        return switch (operator) {
+            case "lt" -> result < 0;
+            case "le" -> result <= 0;
+            case "gt" -> result > 0;
+            default -> result >= 0;
+        };
+    }
+
+    private static Object toJava(Value value) {
+        return switch (value.getKindCase()) {
+            case NUMBER_VALUE -> value.getNumberValue();
+            case STRING_VALUE -> value.getStringValue();
+            case BOOL_VALUE -> value.getBoolValue();
+            case LIST_VALUE -> {
+                List<Object> list = new ArrayList<>();
+                value.getListValue().getValuesList().forEach(item -> list.add(toJava(item)));
+                yield list;
+            }
+            case STRUCT_VALUE -> {
+                Map<String, Object> map = new LinkedHashMap<>();
+                value.getStructValue().getFieldsMap().forEach((key, item) -> map.put(key, toJava(item)));
+                yield map;
+            }
+            default -> null;
+        };
+    }
+}
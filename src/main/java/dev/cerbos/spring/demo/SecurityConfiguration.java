@@ -27,7 +27,8 @@ public class SecurityConfiguration {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(registry -> registry
-                        .requestMatchers("/actuator/health", "/public/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**", "/public/**").permitAll()
+                        .requestMatchers("/actuator/cerbosepoch", "/actuator/cerbosepoch/**").hasRole("admin")
                         .anyRequest().access(cerbosAuthorizationManager))
                 .httpBasic(Customizer.withDefaults())
                 .formLogin(Customizer.withDefaults());
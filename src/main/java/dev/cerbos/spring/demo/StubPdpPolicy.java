@@ -0,0 +1,64 @@
+package dev.cerbos.spring.demo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decisions and injected faults for {@link StubPdpServer}.
+ */
+final class StubPdpPolicy {
+
+    private static final String ANY = "*";
+
+    private final List<CerbosProperties.StubRule> rules;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double errorRate;
+
+    StubPdpPolicy(CerbosProperties.StubPdp config) {
+        if (config.getErrorRate() < 0 || config.getErrorRate() > 1) {
+            throw new IllegalArgumentException("cerbos.pdp.stub.error-rate must be between 0 and 1");
+        }
+        this.rules = List.copyOf(config.getRules());
+        this.latencyNanos = config.getLatency().toNanos();
+        this.jitterNanos = config.getJitter().toNanos();
+        this.errorRate = config.getErrorRate();
+    }
+
+    boolean isAllowed(String resourceKind, Collection<String> roles, String action) {
+        for (CerbosProperties.StubRule rule : rules) {
+            if (matches(rule.getResourceKind(), resourceKind)
+                    && matchesAny(rule.getActions(), List.of(action))
+                    && matchesAny(rule.getRoles(), roles)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns how long the next call should take: the configured latency plus a uniformly distributed jitter.
+     */
+    long nextDelayNanos() {
+        long jitter = jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0;
+        return latencyNanos + jitter;
+    }
+
+    boolean nextCallFails() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    private static boolean matchesAny(List<String> patterns, Collection<String> values) {
+        for (String pattern : patterns) {
+            if (ANY.equals(pattern) || values.contains(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String pattern, String value) {
+        return pattern == null || ANY.equals(pattern) || pattern.equals(value);
+    }
+}
@@ -0,0 +1,138 @@
+package dev.cerbos.spring.demo;
+
+import dev.cerbos.api.v1.effect.EffectOuterClass.Effect;
+import dev.cerbos.api.v1.engine.Engine;
+import dev.cerbos.api.v1.request.Request;
+import dev.cerbos.api.v1.response.Response;
+import dev.cerbos.api.v1.svc.CerbosServiceGrpc;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * A Cerbos PDP stand-in listening on an ephemeral loopback port. It answers {@code CheckResources} and
+ * {@code PlanResources} from {@code cerbos.pdp.stub.rules} and can inject latency, jitter and failures, so the client,
+ * cache, batching and timeout behaviour can be load-tested without a Cerbos deployment.
+ */
+public class StubPdpServer implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StubPdpServer.class);
+
+    private final Server server;
+
+    public StubPdpServer(CerbosProperties.StubPdp config) {
+        StubPdpPolicy policy = new StubPdpPolicy(config);
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        NettyServerBuilder builder = NettyServerBuilder.forAddress(address).addService(new StubCerbosService(policy));
+        if (config.getMaxConcurrentStreams() > 0) {
+            builder.maxConcurrentCallsPerConnection(config.getMaxConcurrentStreams());
+        }
+        try {
+            this.server = builder.build().start();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to start stub Cerbos PDP", ex);
+        }
+        LOGGER.info("Stub Cerbos PDP listening on {}", target());
+    }
+
+    /**
+     * The {@code host:port} to pass to {@code CerbosClientBuilder}.
+     */
+    public String target() {
+        return InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        server.shutdown();
+        if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+            server.shutdownNow();
+        }
+    }
+
+    private static final class StubCerbosService extends CerbosServiceGrpc.CerbosServiceImplBase {
+
+        private final StubPdpPolicy policy;
+
+        StubCerbosService(StubPdpPolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public void checkResources(
+                Request.CheckResourcesRequest request,
+                StreamObserver<Response.CheckResourcesResponse> responseObserver) {
+            if (!simulateCall(responseObserver)) {
+                return;
+            }
+            List<String> roles = request.getPrincipal().getRolesList();
+            Response.CheckResourcesResponse.Builder response =
+                    Response.CheckResourcesResponse.newBuilder().setRequestId(request.getRequestId());
+            for (Request.CheckResourcesRequest.ResourceEntry entry : request.getResourcesList()) {
+                Engine.Resource resource = entry.getResource();
+                Response.CheckResourcesResponse.ResultEntry.Builder result =
+                        Response.CheckResourcesResponse.ResultEntry.newBuilder()
+                                .setResource(Response.CheckResourcesResponse.ResultEntry.Resource.newBuilder()
+                                        .setId(resource.getId())
+                                        .setKind(resource.getKind()));
+                for (String action : entry.getActionsList()) {
+                    boolean allowed = policy.isAllowed(resource.getKind(), roles, action);
+                    result.putActions(action, allowed ? Effect.EFFECT_ALLOW : Effect.EFFECT_DENY);
+                }
+                response.addResults(result);
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void planResources(
+                Request.PlanResourcesRequest request,
+                StreamObserver<Response.PlanResourcesResponse> responseObserver) {
+            if (!simulateCall(responseObserver)) {
+                return;
+            }
+            String kind = request.getResource().getKind();
+            boolean allowed = policy.isAllowed(kind, request.getPrincipal().getRolesList(), request.getAction());
+            Engine.PlanResourcesFilter filter = Engine.PlanResourcesFilter.newBuilder()
+                    .setKind(allowed
+                            ? Engine.PlanResourcesFilter.Kind.KIND_ALWAYS_ALLOWED
+                            : Engine.PlanResourcesFilter.Kind.KIND_ALWAYS_DENIED)
+                    .build();
+            responseObserver.onNext(Response.PlanResourcesResponse.newBuilder()
+                    .setRequestId(request.getRequestId())
+                    .setAction(request.getAction())
+                    .setResourceKind(kind)
+                    .setFilter(filter)
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        /**
+         * Applies the configured delay and failure rate; returns {@code false} when the call has been failed.
+         */
+        private boolean simulateCall(StreamObserver<?> responseObserver) {
+            long delay = policy.nextDelayNanos();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            if (policy.nextCallFails()) {
+                responseObserver.onError(
+                        Status.UNAVAILABLE.withDescription("Injected stub PDP failure").asRuntimeException());
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.Value;
+import dev.cerbos.sdk.builders.AttributeValue;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+class AttributeValueConverterTest {
+
+    @Test
+    void shouldConvertPrimitiveArraysWithoutBoxingThroughReflection() {
+        Value ints = AttributeValueConverter.fromObject(new int[] {1, 2, 3}).toValue();
+        Value flags = AttributeValueConverter.fromObject(new boolean[] {true, false}).toValue();
+
+        assertThat(ints.getListValue().getValuesList())
+                .extracting(Value::getNumberValue)
+                .containsExactly(1.0, 2.0, 3.0);
+        assertThat(flags.getListValue().getValuesList())
+                .extracting(Value::getBoolValue)
+                .containsExactly(true, false);
+    }
+
+    @Test
+    void shouldConvertRecordsThroughTheirAccessors() {
+        Document document = new Document("alpha", "alice", Map.of("title", "Plan"));
+
+        Map<String, Value> recordFields = AttributeValueConverter.fromObject(document).toValue()
+                .getStructValue().getFieldsMap();
+
+        assertThat(recordFields).containsOnlyKeys("id", "owner", "content");
+        assertThat(recordFields.get("owner").getStringValue()).isEqualTo("alice");
+        assertThat(recordFields.get("content").getStructValue().getFieldsMap().get("title").getStringValue())
+                .isEqualTo("Plan");
+    }
+
+    @Test
+    void shouldSendOtherObjectsAsTheirStringForm() {
+        User user = new User("alice", "s3cret", List.of());
+
+        Value value = AttributeValueConverter.fromObject(user).toValue();
+
+        assertThat(value.getStringValue()).isEqualTo(user.toString()).doesNotContain("s3cret");
+    }
+
+    @Test
+    void shouldRejectSelfReferencingValues() {
+        Map<String, Object> cyclic = new HashMap<>();
+        cyclic.put("self", cyclic);
+
+        assertThatThrownBy(() -> AttributeValueConverter.fromObject(cyclic))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
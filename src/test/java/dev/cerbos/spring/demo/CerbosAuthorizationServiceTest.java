@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -15,19 +16,30 @@ import dev.cerbos.sdk.CheckResourcesResult;
 import dev.cerbos.sdk.CheckResult;
 import dev.cerbos.sdk.builders.Principal;
 import dev.cerbos.sdk.builders.ResourceAction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 class CerbosAuthorizationServiceTest {
 
@@ -79,6 +91,30 @@ class CerbosAuthorizationServiceTest {
         assertThat(resourceEntry.getActionsList()).containsExactly("read");
     }
 
+    @Test
+    void shouldCheckRouteResourceWhenTemplateMatches() {
+        CerbosProperties properties = new CerbosProperties();
+        CerbosProperties.Route route = new CerbosProperties.Route();
+        route.setPath("/documents/{id}");
+        route.setResourceKind("document");
+        route.setResourceId("{id}");
+        properties.getHttp().setRoutes(List.of(route));
+        CerbosAuthorizationService routingService = new CerbosAuthorizationService(cerbosBlockingClient, properties);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("123")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+
+        assertThat(routingService.isAllowed(buildAuthentication(), buildRequest("GET", "/documents/123"))).isTrue();
+
+        ArgumentCaptor<ResourceAction> resourceCaptor = ArgumentCaptor.forClass(ResourceAction.class);
+        verify(requestBuilder).addResources(resourceCaptor.capture());
+        Request.CheckResourcesRequest.ResourceEntry resourceEntry = resourceCaptor.getValue().toResourceEntry();
+        assertThat(resourceEntry.getResource().getKind()).isEqualTo("document");
+        assertThat(resourceEntry.getResource().getId()).isEqualTo("123");
+    }
+
     @Test
     void shouldDenyWhenNoResultReturned() {
         when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
@@ -94,6 +130,285 @@ class CerbosAuthorizationServiceTest {
         assertThat(allowed).isFalse();
     }
 
+    @Test
+    void shouldCollapseNonStandardHttpMethodsIntoOneAction() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CerbosAuthorizationService instrumentedService = new CerbosAuthorizationService(
+                cerbosBlockingClient, new CerbosProperties(), null, null, Runnable::run, new CerbosMetrics(registry));
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("/documents/123")).thenReturn(Optional.of(checkResult));
+
+        Authentication authentication = buildAuthentication();
+        instrumentedService.isAllowed(authentication, buildRequest("FOO1", "/documents/123"));
+        instrumentedService.isAllowed(authentication, buildRequest("FOO2", "/documents/123"));
+        instrumentedService.isAllowed(authentication, buildRequest("HEAD", "/documents/123"));
+
+        ArgumentCaptor<ResourceAction> resourceCaptor = ArgumentCaptor.forClass(ResourceAction.class);
+        verify(requestBuilder, times(3)).addResources(resourceCaptor.capture());
+        assertThat(resourceCaptor.getAllValues())
+                .extracting(resource -> resource.toResourceEntry().getActionsList().get(0))
+                .containsExactly("other", "other", "head");
+        assertThat(registry.find(CerbosMetrics.CALLS).tags("action", "other").timer().count()).isEqualTo(2);
+        assertThat(registry.find(CerbosMetrics.CALLS).tags("action", "foo1").timer()).isNull();
+    }
+
+    @Test
+    void shouldRecordPdpCallsAndCachedDecisionsPerCallSite() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CerbosProperties properties = new CerbosProperties();
+        properties.getCache().setEnabled(true);
+        CerbosAuthorizationService instrumentedService = new CerbosAuthorizationService(
+                cerbosBlockingClient,
+                properties,
+                new CerbosDecisionCache(properties.getCache()),
+                null,
+                Runnable::run,
+                new CerbosMetrics(registry));
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(false);
+
+        Authentication authentication = buildAuthentication();
+        for (int i = 0; i < 2; i++) {
+            instrumentedService.checkPermission(
+                    CerbosCallSite.POST_AUTHORIZE, authentication, "document", "alpha", "read", Map.of(), Map.of());
+        }
+
+        assertThat(registry.find(CerbosMetrics.CALLS)
+                        .tags("site", "post_authorize", "kind", "document", "action", "read", "outcome", "deny")
+                        .timer()
+                        .count())
+                .isEqualTo(1);
+        assertThat(registry.find(CerbosMetrics.DECISIONS).tags("outcome", "deny", "source", "cache").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldServeStaleReadDecisionWhenPdpFails() {
+        AtomicLong clock = new AtomicLong();
+        CerbosProperties properties = new CerbosProperties();
+        properties.getCache().setEnabled(true);
+        properties.getResilience().getStaleIfError().setEnabled(true);
+        CerbosAuthorizationService staleService = new CerbosAuthorizationService(
+                cerbosBlockingClient,
+                properties,
+                new CerbosDecisionCache(properties.getCache(), Duration.ofMinutes(5), clock::get),
+                null,
+                Runnable::run);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check())
+                .thenReturn(checkResourcesResult, checkResourcesResult)
+                .thenThrow(new IllegalStateException("PDP unavailable"));
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed(any(String.class))).thenReturn(true);
+
+        Authentication authentication = buildAuthentication();
+        assertThat(staleService.checkPermission(authentication, "document", "alpha", "read", Map.of(), Map.of()))
+                .isTrue();
+        assertThat(staleService.checkPermission(authentication, "document", "alpha", "update", Map.of(), Map.of()))
+                .isTrue();
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(staleService.checkPermission(authentication, "document", "alpha", "read", Map.of(), Map.of()))
+                .isTrue();
+        assertThatThrownBy(() -> staleService.checkPermission(
+                        authentication, "document", "alpha", "update", Map.of(), Map.of()))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void shouldDecideLocallyWithoutCallingThePdp() {
+        LocalPolicyEngine localPolicies = new LocalPolicyEngine(List.of(Map.of("resourcePolicy", Map.of(
+                "version", "default",
+                "resource", "document",
+                "rules", List.of(
+                        Map.of("actions", List.of("read"), "effect", "EFFECT_ALLOW", "roles", List.of("employee")),
+                        Map.of("actions", List.of("update"), "effect", "EFFECT_ALLOW", "derivedRoles",
+                                List.of("owner")))))));
+        CerbosAuthorizationService localService = new CerbosAuthorizationService(
+                CerbosLoadBalancer.single(cerbosBlockingClient),
+                new CerbosProperties(),
+                null,
+                null,
+                Runnable::run,
+                CerbosMetrics.noop(),
+                CerbosResilience.disabled(),
+                localPolicies);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("update")).thenReturn(true);
+
+        Authentication authentication = buildAuthentication();
+        assertThat(localService.checkPermission(authentication, "document", "alpha", "read", Map.of(), Map.of()))
+                .isTrue();
+        assertThat(localService.checkPermission(authentication, "document", "alpha", "delete", Map.of(), Map.of()))
+                .isFalse();
+        verify(cerbosBlockingClient, times(0)).batch(any(Principal.class));
+
+        assertThat(localService.checkPermission(authentication, "document", "alpha", "update", Map.of(), Map.of()))
+                .isTrue();
+        verify(cerbosBlockingClient, times(1)).batch(any(Principal.class));
+    }
+
+    @Test
+    void shouldAuditEveryDecision() {
+        CerbosDecisionLog decisionLog = mock(CerbosDecisionLog.class);
+        CerbosAuthorizationService auditedService = new CerbosAuthorizationService(
+                CerbosLoadBalancer.single(cerbosBlockingClient),
+                new CerbosProperties(),
+                null,
+                null,
+                Runnable::run,
+                CerbosMetrics.noop(),
+                CerbosResilience.disabled(),
+                null,
+                decisionLog);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+
+        Authentication authentication = buildAuthentication();
+        auditedService.checkPermission(authentication, "document", "alpha", "read", Map.of(), Map.of());
+        auditedService.checkPermission(
+                CerbosCallSite.WARMUP, authentication, "document", "alpha", "read", Map.of(), Map.of());
+
+        verify(decisionLog, times(1)).record(eq(CerbosCallSite.METHOD), eq("alice"), eq("document"), eq("alpha"),
+                eq("read"), eq(true), eq(CerbosMetrics.SOURCE_PDP), any(Long.class));
+        verify(decisionLog, times(1)).record(any(CerbosCallSite.class), any(), any(), any(), any(),
+                any(Boolean.class), any(), any(Long.class));
+    }
+
+    @Test
+    void shouldServeRepeatedChecksFromDecisionCache() {
+        CerbosProperties properties = new CerbosProperties();
+        properties.getCache().setEnabled(true);
+        CerbosAuthorizationService cachingService = new CerbosAuthorizationService(
+                cerbosBlockingClient, properties, new CerbosDecisionCache(properties.getCache()), null, Runnable::run);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+
+        Authentication authentication = buildAuthentication();
+        Map<String, Object> attributes = Map.of("owner", "alice");
+
+        assertThat(cachingService.checkPermission(authentication, "document", "alpha", "read", attributes, Map.of()))
+                .isTrue();
+        assertThat(cachingService.checkPermission(authentication, "document", "alpha", "read", attributes, Map.of()))
+                .isTrue();
+
+        verify(requestBuilder, times(1)).check();
+    }
+
+    @Test
+    void shouldNotCacheDecisionsFromACallThatOverlappedANewEpoch() {
+        CerbosProperties properties = new CerbosProperties();
+        properties.getCache().setEnabled(true);
+        CerbosDecisionCache cache = new CerbosDecisionCache(properties.getCache());
+        CerbosAuthorizationService cachingService = new CerbosAuthorizationService(
+                cerbosBlockingClient, properties, cache, null, Runnable::run);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenAnswer(invocation -> {
+            cache.advanceEpoch();
+            return checkResourcesResult;
+        }).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+
+        Authentication authentication = buildAuthentication();
+        Map<String, Object> attributes = Map.of("owner", "alice");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(cachingService.checkPermission(
+                    authentication, "document", "alpha", "read", attributes, Map.of())).isTrue();
+        }
+
+        verify(requestBuilder, times(2)).check();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMemoizePrefetchedDecisionsForTheRestOfTheRequest() {
+        CerbosProperties properties = new CerbosProperties();
+        CerbosProperties.Prefetch prefetch = new CerbosProperties.Prefetch();
+        prefetch.setMethod("GET");
+        prefetch.setPath("/documents/**");
+        prefetch.setResourceKind("document");
+        prefetch.setResourceId("_ANY_");
+        prefetch.setAction("read");
+        properties.getHttp().setPrefetch(List.of(prefetch));
+        CerbosAuthorizationService prefetchingService = new CerbosAuthorizationService(cerbosBlockingClient, properties);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction[].class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find(any())).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+
+        Authentication authentication = buildAuthentication();
+        HttpServletRequest request = buildRequest("GET", "/documents/123");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertThat(prefetchingService.isAllowed(authentication, request)).isTrue();
+            assertThat(prefetchingService.checkPermission(
+                    authentication, "document", "_ANY_", "read", Map.of(), Map.of()))
+                    .isTrue();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        verify(requestBuilder, times(1)).check();
+        ArgumentCaptor<ResourceAction[]> resourceCaptor = ArgumentCaptor.forClass(ResourceAction[].class);
+        verify(requestBuilder).addResources(resourceCaptor.capture());
+        assertThat(resourceCaptor.getValue()).hasSize(2);
+    }
+
+    @Test
+    void shouldChunkBulkChecksByMaxResourcesPerRequest() {
+        CerbosProperties properties = new CerbosProperties();
+        properties.getPdp().setMaxResourcesPerRequest(2);
+        CerbosAuthorizationService bulkService = new CerbosAuthorizationService(cerbosBlockingClient, properties);
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction[].class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find(any())).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+        when(checkResult.isAllowed("delete")).thenReturn(false);
+
+        List<CerbosResource> resources = List.of(
+                new CerbosResource("document", "a", Map.of("owner", "alice")),
+                new CerbosResource("document", "b", Map.of("owner", "bob")),
+                new CerbosResource("document", "c", Map.of()));
+
+        Map<String, Map<String, Boolean>> decisions = bulkService.checkPermissions(
+                buildAuthentication(), resources, Set.of("read", "delete"));
+
+        assertThat(decisions).containsOnlyKeys("a", "b", "c");
+        assertThat(decisions.get("c")).containsEntry("read", true).containsEntry("delete", false);
+        verify(requestBuilder, times(2)).check();
+    }
+
+    @Test
+    void shouldRejectDuplicateIdsInBulkChecks() {
+        List<CerbosResource> resources = List.of(
+                new CerbosResource("document", "a", Map.of()),
+                new CerbosResource("document", "a", Map.of()));
+
+        assertThatThrownBy(() -> authorizationService.checkPermissions(
+                buildAuthentication(), resources, Set.of("read")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void shouldWrapRuntimeExceptions() {
         when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
@@ -108,6 +423,60 @@ class CerbosAuthorizationServiceTest {
                 .hasMessageContaining("Cerbos");
     }
 
+    @Test
+    void shouldEvaluateAsyncChecksOnExecutor() {
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CerbosAuthorizationService asyncService = new CerbosAuthorizationService(
+                    cerbosBlockingClient, new CerbosProperties(), null, null, executor);
+
+            CompletableFuture<Boolean> decision = asyncService.checkPermissionAsync(
+                    buildAuthentication(), "document", "alpha", "read", Map.of(), Map.of());
+
+            assertThat(CerbosAuthorizationService.await(decision)).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldEvaluateOnTheCallingThreadWhenTheExecutorRejects() {
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(checkResourcesResult);
+        when(checkResourcesResult.find("alpha")).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed("read")).thenReturn(true);
+        CerbosAuthorizationService saturatedService = new CerbosAuthorizationService(
+                cerbosBlockingClient, new CerbosProperties(), null, null, command -> {
+                    throw new RejectedExecutionException("queue full");
+                });
+
+        CompletableFuture<Boolean> decision = saturatedService.checkPermissionAsync(
+                buildAuthentication(), "document", "alpha", "read", Map.of(), Map.of());
+
+        assertThat(decision).isCompleted();
+        assertThat(CerbosAuthorizationService.await(decision)).isTrue();
+    }
+
+    @Test
+    void shouldSurfaceAsyncFailuresAsAccessDenied() {
+        when(cerbosBlockingClient.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenThrow(new RuntimeException("boom"));
+
+        CompletableFuture<Boolean> decision = authorizationService.checkPermissionAsync(
+                buildAuthentication(), "document", "alpha", "read", Map.of(), Map.of());
+
+        assertThatThrownBy(() -> CerbosAuthorizationService.await(decision))
+                .isInstanceOf(AccessDeniedException.class)
+                .hasMessageContaining("Cerbos");
+    }
+
     private Authentication buildAuthentication() {
         User user = new User("alice", "password", List.of(() -> "ROLE_employee"));
         return new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities());
@@ -117,6 +486,7 @@ class CerbosAuthorizationServiceTest {
         HttpServletRequest request = mock(HttpServletRequest.class);
         when(request.getMethod()).thenReturn(method);
         when(request.getRequestURI()).thenReturn(uri);
+        when(request.getContextPath()).thenReturn("");
         when(request.getQueryString()).thenReturn(null);
         when(request.getRemoteAddr()).thenReturn("127.0.0.1");
         when(request.getHeaderNames()).thenReturn(java.util.Collections.emptyEnumeration());
@@ -0,0 +1,105 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.cerbos.sdk.CerbosBlockingClient;
+import dev.cerbos.sdk.CheckResourcesRequestBuilder;
+import dev.cerbos.sdk.CheckResourcesResult;
+import dev.cerbos.sdk.builders.Principal;
+import dev.cerbos.sdk.builders.ResourceAction;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class CerbosBatchingDispatcherTest {
+
+    private static final PrincipalKey ALICE = new PrincipalKey("alice", List.of("employee"), Map.of());
+
+    private CerbosBlockingClient client;
+    private CheckResourcesRequestBuilder requestBuilder;
+    private CheckResourcesResult result;
+    private CerbosProperties.Batching config;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(CerbosBlockingClient.class);
+        requestBuilder = mock(CheckResourcesRequestBuilder.class);
+        result = mock(CheckResourcesResult.class);
+        when(client.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction[].class))).thenReturn(requestBuilder);
+        config = new CerbosProperties.Batching();
+        config.setEnabled(true);
+    }
+
+    @Test
+    void shouldCoalesceConcurrentChecksForSamePrincipal() throws Exception {
+        when(requestBuilder.check()).thenReturn(result);
+        config.setWindow(Duration.ofSeconds(5));
+        config.setMaxBatchSize(4);
+        CerbosBatchingDispatcher dispatcher = new CerbosBatchingDispatcher(client, config);
+        Principal principal = Principal.newInstance("alice", "employee");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CheckResourcesResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String id = "doc-" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return dispatcher.check(ALICE, principal, Map.of(id, ResourceAction.newInstance("document", id)));
+            }));
+        }
+        start.countDown();
+        for (Future<CheckResourcesResult> future : futures) {
+            assertThat(future.get()).isSameAs(result);
+        }
+        executor.shutdown();
+
+        verify(requestBuilder, times(1)).check();
+        ArgumentCaptor<ResourceAction[]> resources = ArgumentCaptor.forClass(ResourceAction[].class);
+        verify(requestBuilder).addResources(resources.capture());
+        assertThat(resources.getValue()).hasSize(4);
+    }
+
+    @Test
+    void shouldSendAfterWindowWhenBatchIsNotFull() {
+        when(requestBuilder.check()).thenReturn(result);
+        config.setWindow(Duration.ofMillis(1));
+        CerbosBatchingDispatcher dispatcher = new CerbosBatchingDispatcher(client, config);
+
+        CheckResourcesResult actual = dispatcher.check(
+                ALICE,
+                Principal.newInstance("alice", "employee"),
+                Map.of("alpha", ResourceAction.newInstance("document", "alpha")));
+
+        assertThat(actual).isSameAs(result);
+    }
+
+    @Test
+    void shouldPropagateFailuresToParticipants() {
+        when(requestBuilder.check()).thenThrow(new IllegalStateException("boom"));
+        config.setWindow(Duration.ofMillis(1));
+        CerbosBatchingDispatcher dispatcher = new CerbosBatchingDispatcher(client, config);
+
+        assertThatThrownBy(() -> dispatcher.check(
+                        ALICE,
+                        Principal.newInstance("alice", "employee"),
+                        Map.of("alpha", ResourceAction.newInstance("document", "alpha"))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+    }
+}
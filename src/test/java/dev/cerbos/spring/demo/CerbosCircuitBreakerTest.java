@@ -0,0 +1,97 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CerbosCircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private CerbosProperties.CircuitBreaker config;
+
+    @BeforeEach
+    void setUp() {
+        config = new CerbosProperties.CircuitBreaker();
+        config.setEnabled(true);
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setOpenDuration(Duration.ofSeconds(5));
+        config.setHalfOpenCalls(2);
+    }
+
+    @Test
+    void shouldOpenOnceFailureRateReachesThreshold() {
+        CerbosCircuitBreaker breaker = new CerbosCircuitBreaker(config, clock::get);
+
+        record(breaker, false, FAST);
+        record(breaker, true, FAST);
+        record(breaker, false, FAST);
+        assertThat(breaker.state()).isEqualTo(CerbosCircuitBreaker.State.CLOSED);
+        record(breaker, true, FAST);
+
+        assertThat(breaker.state()).isEqualTo(CerbosCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void shouldOpenOnceSlowCallRateReachesThreshold() {
+        CerbosCircuitBreaker breaker = new CerbosCircuitBreaker(config, clock::get);
+
+        for (int i = 0; i < 4; i++) {
+            record(breaker, false, SLOW);
+        }
+
+        assertThat(breaker.state()).isEqualTo(CerbosCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldCloseAfterSuccessfulTrialCalls() {
+        CerbosCircuitBreaker breaker = open();
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+
+        assertThat(breaker.state()).isEqualTo(CerbosCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldReopenWhenTrialCallFails() {
+        CerbosCircuitBreaker breaker = open();
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure(FAST);
+
+        assertThat(breaker.state()).isEqualTo(CerbosCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    private CerbosCircuitBreaker open() {
+        CerbosCircuitBreaker breaker = new CerbosCircuitBreaker(config, clock::get);
+        for (int i = 0; i < 4; i++) {
+            record(breaker, true, FAST);
+        }
+        assertThat(breaker.state()).isEqualTo(CerbosCircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    private static void record(CerbosCircuitBreaker breaker, boolean failed, long elapsedNanos) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (failed) {
+            breaker.onFailure(elapsedNanos);
+        } else {
+            breaker.onSuccess(elapsedNanos);
+        }
+    }
+}
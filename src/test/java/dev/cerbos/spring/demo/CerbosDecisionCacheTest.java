@@ -0,0 +1,144 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CerbosDecisionCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private CerbosProperties.Cache config;
+
+    @BeforeEach
+    void setUp() {
+        config = new CerbosProperties.Cache();
+        config.setEnabled(true);
+        config.setTtl(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void shouldReturnCachedDecisionUntilTtlElapses() {
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, clock::get);
+        DecisionKey key = key("alpha");
+
+        cache.put(key, true);
+
+        assertThat(cache.get(key)).isTrue();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldApplySeparateAllowAndDenyTtls() {
+        config.setDenyTtl(Duration.ofSeconds(1));
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, clock::get);
+
+        cache.put(key("alpha"), true);
+        cache.put(key("beta"), false);
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        assertThat(cache.get(key("alpha"))).isTrue();
+        assertThat(cache.get(key("beta"))).isNull();
+    }
+
+    @Test
+    void shouldNotCacheWhenTtlIsZero() {
+        config.setDenyTtl(Duration.ZERO);
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, clock::get);
+
+        cache.put(key("alpha"), false);
+
+        assertThat(cache.get(key("alpha"))).isNull();
+    }
+
+    @Test
+    void shouldKeepExpiredDecisionsForStaleRetention() {
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, Duration.ofSeconds(30), clock::get);
+        DecisionKey key = key("alpha");
+
+        cache.put(key, true);
+        clock.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        assertThat(cache.get(key)).isNull();
+        assertThat(cache.getStale(key)).isTrue();
+        clock.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertThat(cache.getStale(key)).isNull();
+    }
+
+    @Test
+    void shouldEvictOnceMaxEntriesExceeded() {
+        config.setMaxEntries(10);
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, clock::get);
+
+        for (int i = 0; i < 25; i++) {
+            cache.put(key("doc-" + i), true);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void shouldInvalidateEarlierEpochsIncludingStaleDecisions() {
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, Duration.ofSeconds(30), clock::get);
+        cache.put(key("alpha"), true);
+        cache.put(key("beta"), false);
+
+        assertThat(cache.advanceEpoch()).isEqualTo(1);
+
+        assertThat(cache.get(key("alpha"))).isNull();
+        assertThat(cache.getStale(key("beta"))).isNull();
+        cache.put(key("alpha"), false);
+        assertThat(cache.get(key("alpha"))).isFalse();
+    }
+
+    @Test
+    void shouldDiscardDecisionsMadeInAnEarlierEpoch() {
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, clock::get);
+        long epoch = cache.epoch();
+
+        cache.advanceEpoch();
+        cache.put(key("alpha"), true, epoch);
+
+        assertThat(cache.get(key("alpha"))).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldEvictEntriesOfEarlierEpochsFirst() {
+        config.setMaxEntries(10);
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, clock::get);
+        for (int i = 0; i < 10; i++) {
+            cache.put(key("old-" + i), true);
+        }
+        cache.advanceEpoch();
+
+        cache.put(key("new"), true);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(key("new"))).isTrue();
+    }
+
+    @Test
+    void shouldTreatEqualAttributeMapsAsSameKey() {
+        CerbosDecisionCache cache = new CerbosDecisionCache(config, clock::get);
+
+        cache.put(key("alpha"), true);
+
+        assertThat(cache.get(new DecisionKey(
+                "alice", List.of("employee"), Map.of("enabled", true),
+                "document", "alpha", Map.of("owner", "alice"), "read")))
+                .isTrue();
+    }
+
+    private DecisionKey key(String resourceId) {
+        return new DecisionKey(
+                "alice", List.of("employee"), Map.of("enabled", true),
+                "document", resourceId, Map.of("owner", "alice"), "read");
+    }
+}
@@ -0,0 +1,144 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class CerbosDecisionLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldWriteOneJsonLinePerDecision() throws Exception {
+        CerbosDecisionLog decisionLog = new CerbosDecisionLog(config(DataSize.ofMegabytes(1), 10));
+
+        decisionLog.record(CerbosCallSite.METHOD, "alice", "document", "1", "read", true, "pdp", 1_500_000);
+        decisionLog.record(CerbosCallSite.HTTP, "bob \"b\"", "http_request", "/documents/1", "read", false, "cache", 0);
+        decisionLog.destroy();
+
+        List<String> lines = lines();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0))
+                .endsWith("\"site\":\"method\",\"principal\":\"alice\",\"kind\":\"document\",\"resource\":\"1\","
+                        + "\"action\":\"read\",\"allowed\":true,\"source\":\"pdp\",\"latencyMicros\":1500}");
+        assertThat(lines.get(1)).contains("\"principal\":\"bob \\\"b\\\"\"", "\"allowed\":false");
+        assertThat(decisionLog.written()).isEqualTo(2);
+        assertThat(decisionLog.dropped()).isZero();
+    }
+
+    @Test
+    void shouldRotateFilesAndKeepTheNewest() throws Exception {
+        CerbosDecisionLog decisionLog = new CerbosDecisionLog(config(DataSize.ofBytes(512), 3));
+
+        for (int i = 0; i < 100; i++) {
+            decisionLog.record(CerbosCallSite.BULK, "alice", "document", "doc-" + i, "read", true, "pdp", 0);
+        }
+        decisionLog.destroy();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> remaining = files.toList();
+            assertThat(remaining).hasSize(3);
+            for (Path file : remaining) {
+                assertThat(Files.size(file)).isLessThanOrEqualTo(512);
+            }
+        }
+        assertThat(lines()).last().asString().contains("\"resource\":\"doc-99\"");
+        assertThat(decisionLog.written()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldRetryInANewFileAfterAWriteFails() throws Exception {
+        Path auditDirectory = directory.resolve("audit");
+        CerbosProperties.Audit config = config(DataSize.ofBytes(512), 10);
+        config.setDirectory(auditDirectory.toString());
+        CerbosDecisionLog decisionLog = new CerbosDecisionLog(config);
+        decisionLog.record(CerbosCallSite.METHOD, "alice", "document", "doc-0", "read", true, "pdp", 0);
+        await(() -> decisionLog.written() == 1);
+
+        try (Stream<Path> files = Files.list(auditDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(auditDirectory);
+        Files.createFile(auditDirectory);
+        for (int i = 1; i <= 10; i++) {
+            decisionLog.record(CerbosCallSite.METHOD, "alice", "document", "doc-" + i, "read", true, "pdp", 0);
+        }
+        await(() -> !decisionLog.healthy());
+        assertThat(decisionLog.failures()).isPositive();
+        assertThat(decisionLog.written()).isLessThan(11);
+
+        Files.delete(auditDirectory);
+        Files.createDirectory(auditDirectory);
+        await(decisionLog::healthy);
+        decisionLog.destroy();
+
+        assertThat(decisionLog.written()).isEqualTo(11);
+        assertThat(decisionLog.dropped()).isZero();
+        List<String> lines = new ArrayList<>();
+        try (Stream<Path> files = Files.list(auditDirectory).sorted()) {
+            for (Path file : files.toList()) {
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(lines).last().asString().contains("\"resource\":\"doc-10\"");
+    }
+
+    @Test
+    void shouldRejectEntriesWhenTheRingIsFull() {
+        CerbosDecisionLog.Ring ring = new CerbosDecisionLog.Ring(5);
+        CerbosDecisionLog.Entry entry =
+                new CerbosDecisionLog.Entry(0, CerbosCallSite.METHOD, "alice", "document", "1", "read", true, "pdp", 0);
+
+        assertThat(ring.capacity()).isEqualTo(8);
+        for (int i = 0; i < 8; i++) {
+            assertThat(ring.offer(entry)).isTrue();
+        }
+        assertThat(ring.offer(entry)).isFalse();
+        assertThat(ring.size()).isEqualTo(8);
+
+        CerbosDecisionLog.Entry[] batch = new CerbosDecisionLog.Entry[3];
+        assertThat(ring.drain(batch)).isEqualTo(3);
+        assertThat(ring.size()).isEqualTo(5);
+        assertThat(ring.offer(entry)).isTrue();
+    }
+
+    private CerbosProperties.Audit config(DataSize maxFileSize, int maxFiles) {
+        CerbosProperties.Audit config = new CerbosProperties.Audit();
+        config.setDirectory(directory.toString());
+        config.setMaxFileSize(maxFileSize);
+        config.setMaxFiles(maxFiles);
+        return config;
+    }
+
+    private List<String> lines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory).sorted()) {
+            for (Path file : files.toList()) {
+                lines.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() - deadline < 0) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
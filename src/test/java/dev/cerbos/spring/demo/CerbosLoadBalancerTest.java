@@ -0,0 +1,206 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import dev.cerbos.sdk.CerbosBlockingClient;
+import dev.cerbos.sdk.CheckResourcesRequestBuilder;
+import dev.cerbos.sdk.builders.Principal;
+import dev.cerbos.sdk.builders.ResourceAction;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CerbosLoadBalancerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, CerbosBlockingClient> clients = new HashMap<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final List<CerbosBlockingClient> closed = new ArrayList<>();
+    private CerbosProperties.Balancing config;
+
+    @BeforeEach
+    void setUp() {
+        config = new CerbosProperties.Balancing();
+        config.setFailureThreshold(2);
+        config.setEjectionDuration(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void shouldRotateAcrossEndpointsRoundRobin() {
+        CerbosLoadBalancer balancer = balancer(List.of("pdp-1:3593", "pdp-2:3593", "pdp-3:3593"));
+
+        List<String> picked = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            picked.add(balancer.pick().target());
+        }
+
+        assertThat(picked).containsExactly(
+                "pdp-1:3593", "pdp-2:3593", "pdp-3:3593", "pdp-1:3593", "pdp-2:3593", "pdp-3:3593");
+    }
+
+    @Test
+    void shouldPreferEndpointWithFewestOutstandingCalls() {
+        config.setPolicy(CerbosProperties.BalancingPolicy.LEAST_OUTSTANDING);
+        CerbosLoadBalancer balancer = balancer(List.of("pdp-1:3593", "pdp-2:3593"));
+
+        List<String> targets = balancer.call(outer -> List.of(target(outer), balancer.call(this::target)));
+
+        assertThat(targets).containsExactlyInAnyOrder("pdp-1:3593", "pdp-2:3593");
+    }
+
+    @Test
+    void shouldEjectEndpointAfterConsecutiveFailures() {
+        CerbosLoadBalancer balancer = balancer(List.of("pdp-1:3593", "pdp-2:3593"));
+
+        for (int i = 0; i < 4; i++) {
+            callFailingOn(balancer, "pdp-1:3593");
+        }
+
+        assertThat(picks(balancer, 4)).containsOnly("pdp-2:3593");
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(picks(balancer, 4)).contains("pdp-1:3593", "pdp-2:3593");
+    }
+
+    @Test
+    void shouldNotEjectMoreThanMaxEjectionPercent() {
+        CerbosLoadBalancer balancer = balancer(List.of("pdp-1:3593", "pdp-2:3593"));
+
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> balancer.call(client -> {
+                throw new IllegalStateException("PDP unavailable");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(picks(balancer, 4)).containsOnly("pdp-2:3593");
+    }
+
+    @Test
+    void shouldReinstateEndpointThatPassesHealthCheck() {
+        CerbosLoadBalancer balancer = balancer(List.of("pdp-1:3593", "pdp-2:3593"));
+        for (int i = 0; i < 4; i++) {
+            callFailingOn(balancer, "pdp-1:3593");
+        }
+        assertThat(picks(balancer, 2)).containsOnly("pdp-2:3593");
+        clients.values().forEach(CerbosLoadBalancerTest::answerHealthChecks);
+
+        balancer.checkHealth();
+
+        assertThat(picks(balancer, 2)).containsExactlyInAnyOrder("pdp-1:3593", "pdp-2:3593");
+    }
+
+    @Test
+    void shouldExpandAndRefreshResolvedAddresses() {
+        config.setResolveDns(true);
+        List<String> addresses = new ArrayList<>(List.of("10.0.0.1:3593", "10.0.0.2:3593"));
+        CerbosLoadBalancer balancer = new CerbosLoadBalancer(
+                List.of("cerbos:3593"), config, 1, this::client, closed::add, name -> List.copyOf(addresses),
+                clock::get);
+
+        assertThat(balancer.endpoints()).containsExactly("10.0.0.1:3593", "10.0.0.2:3593");
+        addresses.remove("10.0.0.1:3593");
+        addresses.add("10.0.0.3:3593");
+        balancer.refresh();
+
+        assertThat(balancer.endpoints()).containsExactly("10.0.0.2:3593", "10.0.0.3:3593");
+        assertThat(picks(balancer, 2)).containsExactlyInAnyOrder("10.0.0.2:3593", "10.0.0.3:3593");
+        assertThat(created).hasValue(3);
+        balancer.destroy();
+    }
+
+    @Test
+    void shouldCloseEndpointsDroppedByARefreshOnceTheirCallsFinish() {
+        config.setResolveDns(true);
+        List<String> addresses = new ArrayList<>(List.of("10.0.0.1:3593", "10.0.0.2:3593"));
+        CerbosLoadBalancer balancer = new CerbosLoadBalancer(
+                List.of("cerbos:3593"), config, 1, this::client, closed::add, name -> List.copyOf(addresses),
+                clock::get);
+
+        balancer.call(client -> {
+            if (target(client).equals("10.0.0.1:3593")) {
+                addresses.remove("10.0.0.1:3593");
+                balancer.refresh();
+                assertThat(closed).as("in-flight call still running").isEmpty();
+            }
+            return null;
+        });
+
+        assertThat(balancer.endpoints()).containsExactly("10.0.0.2:3593");
+        assertThat(closed).containsExactly(clients.get("10.0.0.1:3593"));
+        balancer.destroy();
+        assertThat(closed).containsExactly(clients.get("10.0.0.1:3593"), clients.get("10.0.0.2:3593"));
+    }
+
+    @Test
+    void shouldRotateCallsAcrossChannelsOfAnEndpoint() {
+        List<CerbosBlockingClient> channels = new ArrayList<>();
+        CerbosLoadBalancer balancer = new CerbosLoadBalancer(
+                List.of("pdp-1:3593"), config, 3, target -> {
+                    CerbosBlockingClient channel = mock(CerbosBlockingClient.class);
+                    channels.add(channel);
+                    return channel;
+                }, closed::add, name -> List.of(), clock::get);
+
+        List<CerbosBlockingClient> used = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            used.add(balancer.call(client -> client));
+        }
+
+        assertThat(channels).hasSize(3);
+        assertThat(used.subList(0, 3)).containsExactlyElementsOf(channels);
+        assertThat(used.subList(3, 6)).containsExactlyElementsOf(channels);
+    }
+
+    private CerbosLoadBalancer balancer(List<String> targets) {
+        return new CerbosLoadBalancer(targets, config, 1, this::client, closed::add, name -> List.of(), clock::get);
+    }
+
+    private CerbosBlockingClient client(String target) {
+        created.incrementAndGet();
+        return clients.computeIfAbsent(target, key -> mock(CerbosBlockingClient.class, key));
+    }
+
+    private String target(CerbosBlockingClient client) {
+        return clients.entrySet().stream()
+                .filter(entry -> entry.getValue() == client)
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private void callFailingOn(CerbosLoadBalancer balancer, String failingTarget) {
+        try {
+            balancer.call(client -> {
+                if (target(client).equals(failingTarget)) {
+                    throw new IllegalStateException("PDP unavailable");
+                }
+                return null;
+            });
+        } catch (IllegalStateException expected) {
+            // the failing endpoint was picked
+        }
+    }
+
+    private static List<String> picks(CerbosLoadBalancer balancer, int count) {
+        List<String> picked = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            picked.add(balancer.pick().target());
+        }
+        return picked;
+    }
+
+    private static void answerHealthChecks(CerbosBlockingClient client) {
+        CheckResourcesRequestBuilder builder = mock(CheckResourcesRequestBuilder.class);
+        when(client.batch(any(Principal.class))).thenReturn(builder);
+        when(builder.addResources(any(ResourceAction.class))).thenReturn(builder);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+class CerbosMethodAuthorizerTest {
+
+    private final CerbosAuthorizationService authorizationService = mock(CerbosAuthorizationService.class);
+    private final CerbosMethodAuthorizer methodAuthorizer = new CerbosMethodAuthorizer(authorizationService);
+    private final Authentication authentication =
+            UsernamePasswordAuthenticationToken.authenticated("alice", "password", List.of());
+
+    @Test
+    void shouldCheckAChunkOfRequestsWithoutIdsInOneBulkCall() {
+        List<DocumentRequest> requests = new ArrayList<>();
+        Map<String, Map<String, Boolean>> decisions = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(request(null));
+            decisions.put("_NEW_#" + i, Map.of("create", i % 2 == 0));
+        }
+        when(authorizationService.checkPermissions(any(), anyList(), eq(Set.of("create")), anyMap()))
+                .thenReturn(decisions);
+
+        List<Boolean> allowed = methodAuthorizer.canCreateDocuments(authentication, requests);
+
+        assertThat(allowed).hasSize(100).startsWith(true, false, true).endsWith(false);
+        verify(authorizationService).checkPermissions(any(), anyList(), eq(Set.of("create")), anyMap());
+        verify(authorizationService, never()).checkPermission(
+                any(), any(), any(), any(), any(), anyMap(), anyMap());
+    }
+
+    @Test
+    void shouldKeepSyntheticIdsClearOfRequestedIds() {
+        when(authorizationService.checkPermissions(any(), anyList(), eq(Set.of("create")), anyMap()))
+                .thenReturn(Map.of("_NEW_#1", Map.of("create", false), "_NEW_#1#", Map.of("create", true)));
+
+        List<Boolean> decisions = methodAuthorizer.canCreateDocuments(
+                authentication, List.of(request("_NEW_#1"), request(null)));
+
+        assertThat(decisions).containsExactly(false, true);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CerbosResource>> resources = ArgumentCaptor.forClass(List.class);
+        verify(authorizationService).checkPermissions(any(), resources.capture(), any(), anyMap());
+        assertThat(resources.getValue()).extracting(CerbosResource::id).containsExactly("_NEW_#1", "_NEW_#1#");
+    }
+
+    private static DocumentRequest request(String documentId) {
+        DocumentRequest request = new DocumentRequest();
+        request.setDocumentId(documentId);
+        return request;
+    }
+}
@@ -0,0 +1,47 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class CerbosMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CerbosMetrics metrics = new CerbosMetrics(registry);
+
+    @Test
+    void shouldTrackInFlightCallsAndPayloadSizes() {
+        long started = metrics.callStarted(3, 12);
+
+        assertThat(registry.find(CerbosMetrics.IN_FLIGHT).gauge().value()).isEqualTo(1.0);
+        assertThat(registry.find(CerbosMetrics.ATTRIBUTES).summary().totalAmount()).isEqualTo(12.0);
+
+        metrics.callCompleted(started, CerbosCallSite.HTTP, "http_request", "read", "allow");
+
+        assertThat(registry.find(CerbosMetrics.IN_FLIGHT).gauge().value()).isZero();
+        assertThat(registry.find(CerbosMetrics.CALLS)
+                        .tags("site", "http", "kind", "http_request", "action", "read", "outcome", "allow")
+                        .timer()
+                        .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldClassifyDeadlineExceededAsTimeout() {
+        metrics.callFailed(
+                metrics.callStarted(1, 1),
+                CerbosCallSite.POST_AUTHORIZE,
+                "document",
+                "read",
+                new IllegalStateException(Status.DEADLINE_EXCEEDED.asRuntimeException()));
+        metrics.callFailed(
+                metrics.callStarted(1, 1), CerbosCallSite.POST_AUTHORIZE, "document", "read",
+                new RuntimeException("boom"));
+
+        assertThat(registry.find(CerbosMetrics.ERRORS).tags("type", "timeout").counter().count()).isEqualTo(1.0);
+        assertThat(registry.find(CerbosMetrics.ERRORS).tags("type", "error").counter().count()).isEqualTo(1.0);
+        assertThat(registry.find(CerbosMetrics.IN_FLIGHT).gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,103 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+class CerbosPolicyWatcherTest {
+
+    private final CerbosDecisionCache decisionCache = new CerbosDecisionCache(new CerbosProperties.Cache());
+    private final CerbosProperties.Invalidation config = new CerbosProperties.Invalidation();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldAdvanceTheEpochOnceTheVersionMarkerChanges() throws Exception {
+        Path marker = Files.writeString(directory.resolve("version"), "v1\n");
+        config.setVersionMarker(marker.toUri().toString());
+        config.setPollInterval(Duration.ZERO);
+        CerbosPolicyWatcher watcher = new CerbosPolicyWatcher(config, decisionCache, new DefaultResourceLoader());
+
+        watcher.poll();
+        assertThat(decisionCache.epoch()).isZero();
+
+        Files.writeString(marker, "v2\n");
+        watcher.poll();
+        watcher.poll();
+        assertThat(decisionCache.epoch()).isEqualTo(1);
+
+        Files.delete(marker);
+        watcher.poll();
+        assertThat(decisionCache.epoch()).isEqualTo(1);
+        watcher.destroy();
+    }
+
+    @Test
+    void shouldReloadLocalPoliciesBeforeAdvancingTheEpoch() throws Exception {
+        Path policy = Files.writeString(directory.resolve("document.yaml"), policy("employee"));
+        Path marker = Files.writeString(directory.resolve("version"), "v1\n");
+        LocalPolicyEngine localPolicies = LocalPolicyEngine.load(List.of(directory.toUri() + "*.yaml"));
+        config.setVersionMarker(marker.toUri().toString());
+        config.setPollInterval(Duration.ZERO);
+        CerbosPolicyWatcher watcher =
+                new CerbosPolicyWatcher(config, decisionCache, localPolicies, new DefaultResourceLoader());
+
+        Files.writeString(policy, policy("staff"));
+        Files.writeString(marker, "v2\n");
+        watcher.poll();
+
+        assertThat(decisionCache.epoch()).isEqualTo(1);
+        assertThat(localPolicies.decide(new LocalPolicyEngine.Input(
+                "alice", List.of("employee"), Map.of(), "document", "1", Map.of()), "read")).isFalse();
+        assertThat(localPolicies.decide(new LocalPolicyEngine.Input(
+                "alice", List.of("staff"), Map.of(), "document", "1", Map.of()), "read")).isTrue();
+        watcher.destroy();
+    }
+
+    @Test
+    void shouldAdvanceTheEpochWhenAWatchedPolicyChanges() throws Exception {
+        Path policies = Files.createDirectories(directory.resolve("policies/documents"));
+        config.setWatchDirectory(directory.resolve("policies").toString());
+        config.setQuietPeriod(Duration.ofMillis(100));
+        CerbosPolicyWatcher watcher = new CerbosPolicyWatcher(config, decisionCache, new DefaultResourceLoader());
+
+        Files.writeString(policies.resolve("document.yaml"), "resourcePolicy: {}\n");
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (decisionCache.epoch() == 0 && System.nanoTime() - deadline < 0) {
+            Thread.sleep(20);
+        }
+        assertThat(decisionCache.epoch()).isPositive();
+        watcher.destroy();
+    }
+
+    @Test
+    void shouldRejectAMissingWatchDirectory() {
+        config.setWatchDirectory(directory.resolve("missing").toString());
+
+        assertThatThrownBy(() -> new CerbosPolicyWatcher(config, decisionCache, new DefaultResourceLoader()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("watch-directory");
+    }
+
+    private static String policy(String role) {
+        return """
+                resourcePolicy:
+                  version: default
+                  resource: document
+                  rules:
+                    - actions: ["read"]
+                      effect: EFFECT_ALLOW
+                      roles: ["%s"]
+                """.formatted(role);
+    }
+}
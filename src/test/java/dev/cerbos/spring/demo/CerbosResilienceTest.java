@@ -0,0 +1,115 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class CerbosResilienceTest {
+
+    @Test
+    void shouldFailFastWhileCircuitIsOpen() {
+        CerbosProperties.Resilience config = new CerbosProperties.Resilience();
+        config.getCircuitBreaker().setEnabled(true);
+        config.getCircuitBreaker().setMinimumCalls(2);
+        CerbosResilience resilience = new CerbosResilience(config, Duration.ofSeconds(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> resilience.call(() -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("PDP unavailable");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThatThrownBy(() -> resilience.call(calls::incrementAndGet))
+                .isInstanceOf(CerbosUnavailableException.class);
+        assertThat(calls).hasValue(2);
+        assertThat(resilience.state()).isEqualTo(CerbosCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldHedgeCallsSlowerThanRecentPercentile() {
+        CerbosResilience resilience = hedging(Duration.ofSeconds(5));
+        Thread caller = Thread.currentThread();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            String result = resilience.call(() -> {
+                attempts.incrementAndGet();
+                if (Thread.currentThread() == caller) {
+                    awaitQuietly(release);
+                    return "primary";
+                }
+                return "hedge";
+            });
+
+            assertThat(result).isEqualTo("hedge");
+            assertThat(attempts).hasValue(2);
+            assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        } finally {
+            release.countDown();
+            resilience.destroy();
+        }
+    }
+
+    @Test
+    void shouldFailWithDeadlineExceededWhenTheHedgeOutlivesTheDeadline() {
+        CerbosResilience resilience = hedging(Duration.ofMillis(200));
+        Thread caller = Thread.currentThread();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        try {
+            assertThatThrownBy(() -> resilience.call(() -> {
+                attempts.incrementAndGet();
+                if (Thread.currentThread() == caller) {
+                    sleepQuietly(50);
+                    throw new IllegalStateException("PDP unavailable");
+                }
+                awaitQuietly(release);
+                return "hedge";
+            }))
+                    .isInstanceOf(StatusRuntimeException.class)
+                    .satisfies(ex -> assertThat(Status.fromThrowable(ex).getCode())
+                            .isEqualTo(Status.Code.DEADLINE_EXCEEDED));
+            assertThat(attempts).hasValue(2);
+        } finally {
+            release.countDown();
+            resilience.destroy();
+        }
+    }
+
+    private static CerbosResilience hedging(Duration deadline) {
+        CerbosProperties.Resilience config = new CerbosProperties.Resilience();
+        config.getHedging().setEnabled(true);
+        config.getHedging().setMinimumSamples(5);
+        config.getHedging().setMinDelay(Duration.ofMillis(5));
+        CerbosResilience resilience = new CerbosResilience(config, deadline);
+        for (int i = 0; i < 5; i++) {
+            assertThat(resilience.call(() -> "warm-up")).isEqualTo("warm-up");
+        }
+        return resilience;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.cerbos.sdk.CerbosBlockingClient;
+import dev.cerbos.sdk.CheckResourcesRequestBuilder;
+import dev.cerbos.sdk.CheckResourcesResult;
+import dev.cerbos.sdk.CheckResult;
+import dev.cerbos.sdk.builders.Principal;
+import dev.cerbos.sdk.builders.ResourceAction;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+
+class CerbosWarmupTest {
+
+    private CerbosBlockingClient client;
+    private CheckResourcesRequestBuilder requestBuilder;
+    private CerbosProperties properties;
+    private CerbosDecisionCache cache;
+    private CerbosAuthorizationService service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(CerbosBlockingClient.class);
+        requestBuilder = mock(CheckResourcesRequestBuilder.class);
+        CheckResourcesResult result = mock(CheckResourcesResult.class);
+        CheckResult checkResult = mock(CheckResult.class);
+        when(client.batch(any(Principal.class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction[].class))).thenReturn(requestBuilder);
+        when(requestBuilder.addResources(any(ResourceAction.class))).thenReturn(requestBuilder);
+        when(requestBuilder.check()).thenReturn(result);
+        when(result.find(anyString())).thenReturn(Optional.of(checkResult));
+        when(checkResult.isAllowed(anyString())).thenReturn(true);
+
+        properties = new CerbosProperties();
+        properties.getCache().setEnabled(true);
+        properties.getWarmup().setEnabled(true);
+        properties.getWarmup().setIterations(10);
+        cache = new CerbosDecisionCache(properties.getCache());
+        service = new CerbosAuthorizationService(client, properties, cache, null, Runnable::run);
+    }
+
+    @Test
+    void shouldRunSyntheticChecksAndLoadOnlyHotDecisionsIntoCache() {
+        CerbosProperties.HotDecision hot = new CerbosProperties.HotDecision();
+        hot.setPrincipal("alice");
+        hot.setRoles(List.of("employee"));
+        hot.setResourceKind("document");
+        hot.setResourceId("doc-1");
+        hot.setAttributes(Map.of("owner", "alice"));
+        hot.setActions(List.of("read", "update"));
+        properties.getWarmup().setHotDecisions(List.of(hot));
+        CerbosWarmup warmup = new CerbosWarmup(
+                service, CerbosLoadBalancer.single(client), cache, properties.getWarmup());
+
+        warmup.run(new DefaultApplicationArguments());
+
+        verify(requestBuilder, times(12)).check();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldSkipChecksWhenNoEndpointAnswers() {
+        when(requestBuilder.check()).thenThrow(new IllegalStateException("PDP unavailable"));
+        CerbosWarmup warmup = new CerbosWarmup(
+                service, CerbosLoadBalancer.single(client), cache, properties.getWarmup());
+
+        warmup.run(new DefaultApplicationArguments());
+
+        verify(client, times(1)).batch(any(Principal.class));
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,46 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class HttpAttributeProjectionTest {
+
+    @Test
+    void shouldSendAllHeadersAndFieldsByDefault() {
+        HttpAttributeProjection projection = new HttpAttributeProjection(new CerbosProperties.Http());
+
+        Map<String, Object> attributes = projection.project(buildRequest());
+
+        assertThat(attributes).containsOnlyKeys("method", "path", "query", "remoteAddr", "headers", "segments");
+        assertThat(attributes.get("headers")).isEqualTo(Map.of(
+                "x-tenant", List.of("acme"), "accept", List.of("application/json")));
+        assertThat(attributes.get("segments")).isEqualTo(List.of("documents", "alpha"));
+    }
+
+    @Test
+    void shouldProjectOnlyConfiguredAttributes() {
+        CerbosProperties.Http config = new CerbosProperties.Http();
+        config.setHeaders(List.of("X-Tenant", "X-Missing"));
+        config.setIncludeQuery(false);
+        config.setIncludeRemoteAddr(false);
+        config.setIncludeSegments(false);
+        HttpAttributeProjection projection = new HttpAttributeProjection(config);
+
+        Map<String, Object> attributes = projection.project(buildRequest());
+
+        assertThat(attributes).containsOnlyKeys("method", "path", "headers");
+        assertThat(attributes.get("headers")).isEqualTo(Map.of("x-tenant", List.of("acme")));
+    }
+
+    private MockHttpServletRequest buildRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/alpha");
+        request.setQueryString("expand=true");
+        request.addHeader("X-Tenant", "acme");
+        request.addHeader("Accept", "application/json");
+        return request;
+    }
+}
@@ -0,0 +1,84 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class HttpRouteMatcherTest {
+
+    @Test
+    void shouldResolveKindIdAndVariablesFromTemplate() {
+        HttpRouteMatcher matcher = new HttpRouteMatcher(List.of(
+                route(null, "/tenants/{tenant}/documents/{id}", "document", "{tenant}:{id}", null)));
+
+        HttpRouteMatcher.Match match = matcher.match("GET", "/tenants/acme/documents/alpha/");
+
+        assertThat(match).isNotNull();
+        assertThat(match.kind()).isEqualTo("document");
+        assertThat(match.id()).isEqualTo("acme:alpha");
+        assertThat(match.variables()).isEqualTo(Map.of("tenant", "acme", "id", "alpha"));
+        assertThat(matcher.match("GET", "/tenants/acme/documents")).isNull();
+    }
+
+    @Test
+    void shouldPreferLiteralSegmentsAndHonourMethods() {
+        HttpRouteMatcher matcher = new HttpRouteMatcher(List.of(
+                route(null, "/documents/{id}", "document", "{id}", null),
+                route("POST", "/documents/search", "document_search", null, "search")));
+
+        HttpRouteMatcher.Match search = matcher.match("POST", "/documents/search");
+        HttpRouteMatcher.Match read = matcher.match("GET", "/documents/search");
+
+        assertThat(search.kind()).isEqualTo("document_search");
+        assertThat(search.id()).isEqualTo("/documents/search");
+        assertThat(search.action()).isEqualTo("search");
+        assertThat(read.kind()).isEqualTo("document");
+        assertThat(read.id()).isEqualTo("search");
+    }
+
+    @Test
+    void shouldDecodeCapturedSegments() {
+        HttpRouteMatcher matcher = new HttpRouteMatcher(List.of(
+                route(null, "/documents/{id}", "document", "{id}", null)));
+
+        HttpRouteMatcher.Match match = matcher.match("GET", "/documents/a%20b%2Fc");
+
+        assertThat(match.id()).isEqualTo("a b/c");
+        assertThat(match.variables()).isEqualTo(Map.of("id", "a b/c"));
+        assertThat(matcher.match("GET", "/documents/a%2")).isNull();
+    }
+
+    @Test
+    void shouldMatchRequestsBelowTheContextPath() {
+        HttpRouteMatcher matcher = new HttpRouteMatcher(List.of(
+                route(null, "/documents/{id}", "document", "{id}", null)));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/documents/a%20b;jsessionid=1");
+        request.setContextPath("/app");
+
+        HttpRouteMatcher.Match match = matcher.match(request);
+
+        assertThat(match).isNotNull();
+        assertThat(match.id()).isEqualTo("a b");
+    }
+
+    @Test
+    void shouldRejectIdsReferencingUnknownVariables() {
+        assertThatThrownBy(() -> new HttpRouteMatcher(List.of(
+                route(null, "/documents/{id}", "document", "{documentId}", null))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CerbosProperties.Route route(String method, String path, String kind, String id, String action) {
+        CerbosProperties.Route route = new CerbosProperties.Route();
+        route.setMethod(method);
+        route.setPath(path);
+        route.setResourceKind(kind);
+        route.setResourceId(id);
+        route.setAction(action);
+        return route;
+    }
+}
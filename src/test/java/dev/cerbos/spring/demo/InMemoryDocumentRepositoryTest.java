@@ -0,0 +1,76 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class InMemoryDocumentRepositoryTest {
+
+    private final InMemoryDocumentRepository repository = new InMemoryDocumentRepository(List.of("status"));
+
+    @Test
+    void shouldPageThroughOwnedDocumentsInIdOrder() {
+        for (int i = 0; i < 7; i++) {
+            repository.save(new Document("doc-" + i, i % 2 == 0 ? "alice" : "bob", Map.of()));
+        }
+
+        DocumentPage first = repository.findByOwner("alice", null, 3);
+        assertThat(first.documents()).extracting(Document::id).containsExactly("doc-0", "doc-2", "doc-4");
+        assertThat(first.nextCursor()).isNotNull();
+
+        repository.save(new Document("doc-1a", "alice", Map.of()));
+        DocumentPage second = repository.findByOwner("alice", first.nextCursor(), 3);
+        assertThat(second.documents()).extracting(Document::id).containsExactly("doc-6");
+        assertThat(second.nextCursor()).isNull();
+
+        assertThat(repository.findByOwner("carol", null, 3).documents()).isEmpty();
+    }
+
+    @Test
+    void shouldMoveDocumentsBetweenIndexEntriesOnSave() {
+        repository.save(new Document("alpha", "alice", Map.of("status", "draft")));
+        repository.save(new Document("beta", "alice", Map.of("status", "draft")));
+
+        repository.save(new Document("alpha", "bob", Map.of("status", "published")));
+
+        assertThat(repository.findByOwner("alice", null, 10).documents()).extracting(Document::id)
+                .containsExactly("beta");
+        assertThat(repository.findByOwner("bob", null, 10).documents()).extracting(Document::id)
+                .containsExactly("alpha");
+        assertThat(repository.findByContent("status", "draft", null, 10).documents()).extracting(Document::id)
+                .containsExactly("beta");
+        assertThat(repository.findByContent("status", "published", null, 10).documents()).extracting(Document::id)
+                .containsExactly("alpha");
+    }
+
+    @Test
+    void shouldCollectEveryDocumentExactlyOnceAcrossPages() {
+        for (int i = 0; i < 100; i++) {
+            repository.save(new Document(String.format("doc-%03d", i), "alice", Map.of("status", i % 4)));
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            DocumentPage page = repository.findByContent("status", 1, cursor, 7);
+            page.documents().forEach(document -> seen.add(document.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(25).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void shouldRejectUnindexedKeysAndInvalidCursors() {
+        assertThatThrownBy(() -> repository.findByContent("title", "x", null, 10))
+                .isInstanceOf(InvalidQueryException.class);
+        assertThatThrownBy(() -> repository.findByOwner("alice", "not base64!", 10))
+                .isInstanceOf(InvalidQueryException.class);
+        assertThatThrownBy(() -> repository.findByOwner("alice", null, 0))
+                .isInstanceOf(InvalidQueryException.class);
+    }
+}
@@ -0,0 +1,242 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+class LocalPolicyEngineTest {
+
+    private static final String DOCUMENT_POLICY = """
+            apiVersion: api.cerbos.dev/v1
+            resourcePolicy:
+              version: default
+              resource: document
+              rules:
+                - actions: ["read"]
+                  effect: EFFECT_ALLOW
+                  roles: ["employee"]
+                - actions: ["update", "delete"]
+                  effect: EFFECT_ALLOW
+                  roles: ["employee"]
+                  condition:
+                    match:
+                      expr: request.resource.attr.owner == request.principal.id
+                - actions: ["*"]
+                  effect: EFFECT_ALLOW
+                  roles: ["admin"]
+                - actions: ["delete"]
+                  effect: EFFECT_DENY
+                  roles: ["*"]
+                  condition:
+                    match:
+                      all:
+                        of:
+                          - expr: R.attr.locked == true
+                          - expr: '!(P.attr.department in ["legal", "compliance"])'
+                - actions: ["approve:*"]
+                  effect: EFFECT_ALLOW
+                  roles: ["manager"]
+                  condition:
+                    match:
+                      expr: R.attr.amount <= P.attr.limit
+            """;
+
+    @Test
+    void shouldAllowByRoleAndOwnerCondition() {
+        LocalPolicyEngine engine = engine(DOCUMENT_POLICY);
+
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of()), "read")).isTrue();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of("owner", "alice")), "update"))
+                .isTrue();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of("owner", "bob")), "update"))
+                .isFalse();
+        assertThat(engine.decide(input("alice", List.of("guest"), Map.of(), Map.of()), "read")).isFalse();
+    }
+
+    @Test
+    void shouldLetDenyRulesOverrideAllowRules() {
+        LocalPolicyEngine engine = engine(DOCUMENT_POLICY);
+        Map<String, Object> locked = Map.of("locked", true);
+
+        assertThat(engine.decide(input("root", List.of("admin"), Map.of("department", "it"), locked), "delete"))
+                .isFalse();
+        assertThat(engine.decide(input("root", List.of("admin"), Map.of("department", "legal"), locked), "delete"))
+                .isTrue();
+        assertThat(engine.decide(input("root", List.of("admin"), Map.of("department", "it"), Map.of()), "delete"))
+                .as("a deny condition reading a missing attribute is left to the PDP")
+                .isNull();
+        assertThat(engine.decide(input("root", List.of("admin"), Map.of("department", "legal"), Map.of()), "delete"))
+                .as("false && error is false")
+                .isTrue();
+    }
+
+    @Test
+    void shouldAbsorbConditionErrorsTheCelWay() {
+        LocalPolicyEngine engine = engine("""
+                resourcePolicy:
+                  version: default
+                  resource: document
+                  rules:
+                    - actions: ["read"]
+                      effect: EFFECT_ALLOW
+                      roles: ["employee"]
+                    - actions: ["read"]
+                      effect: EFFECT_DENY
+                      roles: ["*"]
+                      condition:
+                        match:
+                          expr: R.attr.missing == "x" || P.attr.blocked == true
+                    - actions: ["update"]
+                      effect: EFFECT_ALLOW
+                      roles: ["employee"]
+                      condition:
+                        match:
+                          any:
+                            of:
+                              - expr: R.attr.missing == "x"
+                              - expr: R.attr.owner == P.id
+                """);
+
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of("blocked", true), Map.of()), "read"))
+                .as("error || true is true, so the deny rule applies")
+                .isFalse();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of("blocked", false), Map.of()), "read"))
+                .as("error || false is an error, which a deny rule leaves to the PDP")
+                .isNull();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of("owner", "alice")), "update"))
+                .isTrue();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of("owner", "bob")), "update"))
+                .as("an allow condition that fails to evaluate does not match")
+                .isFalse();
+    }
+
+    @Test
+    void shouldMatchActionGlobsWithinOneSegment() {
+        LocalPolicyEngine engine = engine(DOCUMENT_POLICY);
+        Map<String, Object> limit = Map.of("limit", 1000);
+
+        assertThat(engine.decide(input("carol", List.of("manager"), limit, Map.of("amount", 250)), "approve:invoice"))
+                .isTrue();
+        assertThat(engine.decide(input("carol", List.of("manager"), limit, Map.of("amount", 2500)), "approve:invoice"))
+                .isFalse();
+        assertThat(engine.decide(input("carol", List.of("manager"), limit, Map.of("amount", 250)), "approve:a:b"))
+                .isFalse();
+    }
+
+    @Test
+    void shouldLeaveUnknownKindsAndPrincipalPoliciesToThePdp() {
+        LocalPolicyEngine engine = engine(DOCUMENT_POLICY, """
+                principalPolicy:
+                  version: default
+                  principal: auditor
+                  rules: []
+                """);
+
+        assertThat(engine.resourceKinds()).containsExactly("document");
+        assertThat(engine.decide(new LocalPolicyEngine.Input(
+                "alice", List.of("employee"), Map.of(), "invoice", "1", Map.of()), "read")).isNull();
+        assertThat(engine.decide(input("auditor", List.of("employee"), Map.of(), Map.of()), "read")).isNull();
+    }
+
+    @Test
+    void shouldLeaveDerivedRolesAndUnsupportedConditionsToThePdp() {
+        LocalPolicyEngine engine = engine("""
+                resourcePolicy:
+                  version: default
+                  resource: document
+                  importDerivedRoles: ["common_roles"]
+                  rules:
+                    - actions: ["read"]
+                      effect: EFFECT_ALLOW
+                      roles: ["employee"]
+                    - actions: ["update"]
+                      effect: EFFECT_ALLOW
+                      derivedRoles: ["owner"]
+                    - actions: ["share"]
+                      effect: EFFECT_ALLOW
+                      roles: ["employee"]
+                      condition:
+                        match:
+                          expr: R.attr.tags.exists(t, t == "public")
+                """);
+
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of()), "read")).isTrue();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of()), "update")).isNull();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of()), "share")).isNull();
+        assertThat(engine.decide(input("alice", List.of("guest"), Map.of(), Map.of()), "share")).isFalse();
+    }
+
+    @Test
+    void shouldIgnoreScopedAndVersionedPoliciesAndRejectDuplicates() {
+        LocalPolicyEngine engine = engine("""
+                resourcePolicy:
+                  version: "20240101"
+                  resource: invoice
+                  rules: []
+                ---
+                resourcePolicy:
+                  version: default
+                  scope: acme
+                  resource: report
+                  rules: []
+                """);
+
+        assertThat(engine.resourceKinds()).isEmpty();
+        assertThatThrownBy(() -> engine(DOCUMENT_POLICY, DOCUMENT_POLICY))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("document");
+    }
+
+    @Test
+    void shouldReloadPoliciesAndKeepThemWhenAReloadFails(@TempDir Path directory) throws Exception {
+        Path policy = Files.writeString(directory.resolve("document.yaml"), DOCUMENT_POLICY);
+        LocalPolicyEngine engine = LocalPolicyEngine.load(List.of(directory.toUri() + "*.yaml"));
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of()), "read")).isTrue();
+
+        Files.writeString(policy, DOCUMENT_POLICY.replace("roles: [\"employee\"]", "roles: [\"staff\"]"));
+        assertThat(engine.reload()).isTrue();
+        assertThat(engine.decide(input("alice", List.of("employee"), Map.of(), Map.of()), "read")).isFalse();
+        assertThat(engine.decide(input("alice", List.of("staff"), Map.of(), Map.of()), "read")).isTrue();
+
+        Files.writeString(policy, DOCUMENT_POLICY + "---\n" + DOCUMENT_POLICY);
+        assertThat(engine.reload()).isFalse();
+        assertThat(engine.decide(input("alice", List.of("staff"), Map.of(), Map.of()), "read")).isTrue();
+    }
+
+    @Test
+    void shouldRejectUnsupportedConditionSyntax() {
+        assertThatThrownBy(() -> PolicyConditionCompiler.compile("size(R.attr.tags) > 1"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> PolicyConditionCompiler.compile("V.owner == P.id"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(PolicyConditionCompiler.tokenize("R.attr.name != 'a\\'b' && P.attr.level >= -2"))
+                .containsExactly("R", ".", "attr", ".", "name", "!=", "'a'b", "&&",
+                        "P", ".", "attr", ".", "level", ">=", "-", "2");
+    }
+
+    private static LocalPolicyEngine engine(String... sources) {
+        Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+        List<Object> documents = new ArrayList<>();
+        for (String source : sources) {
+            yaml.loadAll(source).forEach(documents::add);
+        }
+        return new LocalPolicyEngine(documents);
+    }
+
+    private static LocalPolicyEngine.Input input(
+            String principal, List<String> roles, Map<String, Object> principalAttributes,
+            Map<String, Object> resourceAttributes) {
+        return new LocalPolicyEngine.Input(
+                principal, roles, principalAttributes, "document", "doc-1", resourceAttributes);
+    }
+}
@@ -0,0 +1,123 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class LogDocumentRepositoryTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepLatestDocumentsAcrossRestarts() throws Exception {
+        LogDocumentRepository repository = open(DataSize.ofKilobytes(64));
+        repository.save(new Document("alpha", "alice", Map.of("title", "Quarterly plan")));
+        repository.save(new Document("beta", "bob", Map.of("title", "Draft budget", "pages", 3)));
+        repository.save(new Document("alpha", "alice", Map.of("title", "Quarterly plan v2")));
+        repository.destroy();
+
+        LogDocumentRepository reopened = open(DataSize.ofKilobytes(64));
+
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.findById("alpha")).contains(
+                new Document("alpha", "alice", Map.of("title", "Quarterly plan v2")));
+        assertThat(reopened.findById("beta").orElseThrow().content()).containsEntry("pages", 3);
+        assertThat(reopened.findById("gamma")).isEmpty();
+        assertThat(reopened.findAll()).extracting(Document::id).containsExactlyInAnyOrder("alpha", "beta");
+        reopened.destroy();
+    }
+
+    @Test
+    void shouldRebuildSecondaryIndexesOnRecovery() throws Exception {
+        LogDocumentRepository repository = open(DataSize.ofKilobytes(64));
+        repository.save(new Document("alpha", "alice", Map.of("status", "draft")));
+        repository.save(new Document("beta", "alice", Map.of("status", "draft")));
+        repository.save(new Document("alpha", "bob", Map.of("status", "published")));
+        repository.destroy();
+
+        LogDocumentRepository reopened = open(DataSize.ofKilobytes(64));
+
+        assertThat(reopened.findByOwner("alice", null, 10).documents()).extracting(Document::id)
+                .containsExactly("beta");
+        assertThat(reopened.findByContent("status", "published", null, 10).documents()).extracting(Document::id)
+                .containsExactly("alpha");
+        reopened.destroy();
+    }
+
+    @Test
+    void shouldDiscardAnIncompleteRecordOnRecovery() throws Exception {
+        LogDocumentRepository repository = open(DataSize.ofKilobytes(64));
+        repository.save(new Document("alpha", "alice", Map.of()));
+        repository.destroy();
+        Path segment = repository.segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(200).putInt(42).putShort((short) 4).flip());
+        }
+
+        LogDocumentRepository recovered = open(DataSize.ofKilobytes(64));
+        assertThat(recovered.findAll()).extracting(Document::id).containsExactly("alpha");
+        recovered.save(new Document("beta", "bob", Map.of()));
+        recovered.destroy();
+
+        LogDocumentRepository reopened = open(DataSize.ofKilobytes(64));
+        assertThat(reopened.findAll()).extracting(Document::id).containsExactlyInAnyOrder("alpha", "beta");
+        reopened.destroy();
+    }
+
+    @Test
+    void shouldCompactSegmentsOfOverwrittenDocuments() throws Exception {
+        LogDocumentRepository repository = open(DataSize.ofBytes(512));
+        for (int i = 0; i < 50; i++) {
+            repository.save(new Document("doc-" + (i % 3), "alice", Map.of("revision", i)));
+        }
+        List<Path> before = repository.segmentFiles();
+
+        repository.compact();
+
+        List<Path> after = repository.segmentFiles();
+        assertThat(before.size()).isGreaterThan(3);
+        assertThat(after.size()).isLessThan(before.size());
+        assertThat(repository.findById("doc-2").orElseThrow().content()).containsEntry("revision", 47);
+        repository.destroy();
+
+        LogDocumentRepository reopened = open(DataSize.ofBytes(512));
+        assertThat(reopened.size()).isEqualTo(3);
+        assertThat(reopened.findById("doc-1").orElseThrow().content()).containsEntry("revision", 49);
+        reopened.destroy();
+    }
+
+    @Test
+    void shouldRejectWritesOnceClosed() throws Exception {
+        LogDocumentRepository repository = open(DataSize.ofKilobytes(64));
+        repository.save(new Document("alpha", "alice", Map.of()));
+        repository.destroy();
+
+        assertThatThrownBy(() -> repository.save(new Document("beta", "bob", Map.of())))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("closed");
+        assertThat(repository.findById("alpha")).isPresent();
+    }
+
+    private LogDocumentRepository open(DataSize segmentSize) {
+        DocumentStoreProperties properties = new DocumentStoreProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSize(segmentSize);
+        properties.setCompactionInterval(Duration.ZERO);
+        properties.setIndexedContentKeys(List.of("status"));
+        return new LogDocumentRepository(properties, objectMapper);
+    }
+}
@@ -0,0 +1,42 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class NdjsonReaderTest {
+
+    @Test
+    void shouldReadNonBlankLinesWithTheirNumbers() throws Exception {
+        NdjsonReader reader = reader("{\"a\":1}\r\n\n  \n{\"b\":2}", 64);
+
+        NdjsonReader.Line first = reader.next();
+        assertThat(first.number()).isEqualTo(1);
+        assertThat(text(first)).isEqualTo("{\"a\":1}");
+        NdjsonReader.Line second = reader.next();
+        assertThat(second.number()).isEqualTo(4);
+        assertThat(text(second)).isEqualTo("{\"b\":2}");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void shouldReportOverlongLinesWithoutTheirContent() throws Exception {
+        NdjsonReader reader = reader("x".repeat(100) + "\n{}\n", 16);
+
+        NdjsonReader.Line overlong = reader.next();
+        assertThat(overlong.tooLong()).isTrue();
+        assertThat(overlong.length()).isZero();
+        assertThat(text(reader.next())).isEqualTo("{}");
+        assertThat(reader.next()).isNull();
+    }
+
+    private static NdjsonReader reader(String input, int maxLineBytes) {
+        return new NdjsonReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), maxLineBytes);
+    }
+
+    private static String text(NdjsonReader.Line line) {
+        return new String(line.bytes(), 0, line.length(), StandardCharsets.UTF_8);
+    }
+}
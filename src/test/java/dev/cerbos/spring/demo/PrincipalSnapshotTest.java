@@ -0,0 +1,50 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class PrincipalSnapshotTest {
+
+    @Test
+    void shouldStripRolePrefixAndMergeAdditionalAttributes() {
+        PrincipalSnapshot snapshot = PrincipalSnapshot.of(buildAuthentication());
+
+        assertThat(snapshot.roles()).containsExactlyInAnyOrder("employee", "ADMIN_LIKE");
+        assertThat(snapshot.attributes(Map.of())).containsEntry("enabled", true);
+        assertThat(snapshot.attributes(Map.of("department", "sales")))
+                .containsEntry("department", "sales")
+                .containsEntry("roles", snapshot.roles());
+        assertThat(snapshot.toPrincipal(Map.of()).toPrincipal().getRolesList())
+                .containsExactlyElementsOf(snapshot.roles());
+    }
+
+    @Test
+    void shouldReuseSnapshotForSameAuthenticationWithinRequest() {
+        Authentication authentication = buildAuthentication();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            CerbosRequestContext context = CerbosRequestContext.current();
+
+            assertThat(context.principal(authentication)).isSameAs(context.principal(authentication));
+            assertThat(context.principal(buildAuthentication())).isNotSameAs(context.principal(authentication));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    private Authentication buildAuthentication() {
+        User user = new User("alice", "password", List.of(
+                new SimpleGrantedAuthority("ROLE_employee"), new SimpleGrantedAuthority("ADMIN_LIKE")));
+        return new UsernamePasswordAuthenticationToken(user, user.getPassword(), user.getAuthorities());
+    }
+}
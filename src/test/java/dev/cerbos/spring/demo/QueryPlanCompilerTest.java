@@ -0,0 +1,91 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
+import dev.cerbos.api.v1.engine.Engine.PlanResourcesFilter.Expression;
+import dev.cerbos.api.v1.engine.Engine.PlanResourcesFilter.Expression.Operand;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+class QueryPlanCompilerTest {
+
+    private static final Document ALPHA = new Document("alpha", "alice", Map.of("title", "Quarterly plan", "pages", 12));
+    private static final Document BETA = new Document("beta", "bob", Map.of("title", "Draft budget", "pages", 3));
+
+    @Test
+    void shouldCompileOwnerEquality() {
+        Predicate<Document> predicate = compile(expression("eq", variable("request.resource.attr.owner"), string("alice")));
+
+        assertThat(predicate.test(ALPHA)).isTrue();
+        assertThat(predicate.test(BETA)).isFalse();
+    }
+
+    @Test
+    void shouldCompileLogicalOperatorsOverNestedContent() {
+        Predicate<Document> predicate = compile(expression(
+                "or",
+                expression("eq", variable("request.resource.attr.owner"), string("carol")),
+                expression("not", expression("lt", variable("request.resource.attr.content.pages"), number(10)))));
+
+        assertThat(predicate.test(ALPHA)).isTrue();
+        assertThat(predicate.test(BETA)).isFalse();
+    }
+
+    @Test
+    void shouldCompileMembership() {
+        Operand owners = Operand.newBuilder()
+                .setValue(Value.newBuilder().setListValue(ListValue.newBuilder()
+                        .addValues(Value.newBuilder().setStringValue("bob"))
+                        .addValues(Value.newBuilder().setStringValue("carol"))))
+                .build();
+        Predicate<Document> predicate = compile(expression("in", variable("request.resource.attr.owner"), owners));
+
+        assertThat(predicate.test(ALPHA)).isFalse();
+        assertThat(predicate.test(BETA)).isTrue();
+    }
+
+    @Test
+    void shouldRejectUnsupportedOperators() {
+        Operand condition = expression("hasIntersection", variable("request.resource.attr.tags"), string("x"));
+
+        assertThatThrownBy(() -> compile(condition)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldRejectVariablesDocumentsDoNotCarry() {
+        Operand condition = expression(
+                "not", expression("eq", variable("request.resource.attr.department"), string("sales")));
+
+        assertThatThrownBy(() -> compile(condition))
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageContaining("request.resource.attr.department");
+    }
+
+    private static Predicate<Document> compile(Operand condition) {
+        return QueryPlanCompiler.compile(condition, CerbosMethodAuthorizer::documentVariable);
+    }
+
+    private static Operand expression(String operator, Operand... operands) {
+        Expression.Builder expression = Expression.newBuilder().setOperator(operator);
+        for (Operand operand : operands) {
+            expression.addOperands(operand);
+        }
+        return Operand.newBuilder().setExpression(expression).build();
+    }
+
+    private static Operand variable(String name) {
+        return Operand.newBuilder().setVariable(name).build();
+    }
+
+    private static Operand string(String value) {
+        return Operand.newBuilder().setValue(Value.newBuilder().setStringValue(value)).build();
+    }
+
+    private static Operand number(double value) {
+        return Operand.newBuilder().setValue(Value.newBuilder().setNumberValue(value)).build();
+    }
+}
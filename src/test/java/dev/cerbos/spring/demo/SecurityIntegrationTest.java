@@ -1,17 +1,26 @@
 package dev.cerbos.spring.demo;
 
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import dev.cerbos.sdk.CerbosBlockingClient;
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -20,6 +29,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.core.Authentication;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -28,6 +38,9 @@ class SecurityIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private DocumentRepository documentRepository;
+
     @MockBean
     private CerbosBlockingClient cerbosBlockingClient;
 
@@ -44,11 +57,31 @@ class SecurityIntegrationTest {
                 .andExpect(content().string("public"));
     }
 
+    @Test
+    void healthProbesAreAccessibleWithoutCredentials() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+        mockMvc.perform(get("/actuator/health/liveness"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void epochEndpointIsDeniedToNonAdmins() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+
+        mockMvc.perform(post("/actuator/cerbosepoch").with(httpBasic("alice", "password")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/actuator/cerbosepoch").with(httpBasic("bob", "password")))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void protectedResourceAllowedWhenCerbosApproves() throws Exception {
         when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
                 .thenReturn(true);
-        when(cerbosMethodAuthorizer.canViewDocuments(any())).thenReturn(true);
+        when(cerbosMethodAuthorizer.canViewDocumentsAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
         when(cerbosMethodAuthorizer.canAccessDocument(any(), any(Document.class), eq("read"))).thenReturn(true);
 
         mockMvc.perform(get("/documents/alpha").with(httpBasic("alice", "password")))
@@ -60,13 +93,183 @@ class SecurityIntegrationTest {
     void protectedResourceDeniedWhenCerbosRejects() throws Exception {
         when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
                 .thenReturn(true);
-        when(cerbosMethodAuthorizer.canViewDocuments(any())).thenReturn(true);
+        when(cerbosMethodAuthorizer.canViewDocumentsAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
         when(cerbosMethodAuthorizer.canAccessDocument(any(), any(Document.class), eq("read"))).thenReturn(false);
 
         mockMvc.perform(get("/documents/alpha").with(httpBasic("alice", "password")))
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void protectedResourceDeniedWhenCoarseCheckRejects() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.canViewDocumentsAsync(any())).thenReturn(CompletableFuture.completedFuture(false));
+        when(cerbosMethodAuthorizer.canAccessDocument(any(), any(Document.class), eq("read"))).thenReturn(true);
+
+        mockMvc.perform(get("/documents/alpha").with(httpBasic("alice", "password")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void listDocumentsReturnsOnlyReadableDocuments() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.documentPlanFilter(any(), eq("read")))
+                .thenReturn(document -> "bob".equals(document.owner()));
+
+        mockMvc.perform(get("/documents").with(httpBasic("alice", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value("beta"));
+    }
+
+    @Test
+    void listDocumentsChecksDocumentsInBatchesWithoutAQueryPlan() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.filterAccessibleDocuments(any(), anyList(), eq("read")))
+                .thenAnswer(invocation -> invocation.<List<Document>>getArgument(1).stream()
+                        .filter(document -> "beta".equals(document.id()))
+                        .toList());
+
+        mockMvc.perform(get("/documents").with(httpBasic("alice", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value("beta"));
+        verify(cerbosMethodAuthorizer, never()).canAccessDocument(any(), any(Document.class), any());
+    }
+
+    @Test
+    void listDocumentsByOwnerReturnsAPageOfReadableDocuments() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.documentPlanFilter(any(), eq("read"))).thenReturn(document -> true);
+
+        mockMvc.perform(get("/documents").param("owner", "bob").with(httpBasic("alice", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.documents.length()").value(1))
+                .andExpect(jsonPath("$.documents[0].id").value("beta"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        mockMvc.perform(get("/documents").param("owner", "bob").param("cursor", "%%")
+                        .with(httpBasic("alice", "password")))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsDocumentsMatchingTheQueryPlan() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.documentPlanFilter(any(), eq("read")))
+                .thenReturn(document -> "alice".equals(document.owner()));
+
+        MvcResult result = mockMvc.perform(get("/documents/export").with(httpBasic("alice", "password")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(matchesPattern("\\{\"id\":\"alpha\",\"owner\":\"alice\".*}\n")));
+    }
+
+    @Test
+    void exportChecksDocumentsInBatchesWithoutAQueryPlan() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.filterAccessibleDocuments(any(), anyList(), eq("read")))
+                .thenAnswer(invocation -> invocation.<List<Document>>getArgument(1).stream()
+                        .filter(document -> "beta".equals(document.id()))
+                        .toList());
+
+        MvcResult result = mockMvc.perform(get("/documents/export").with(httpBasic("alice", "password")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(matchesPattern("\\{\"id\":\"beta\",.*}\n")));
+    }
+
+    @Test
+    void pageCursorsNeverNameUnreadableDocuments() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.documentPlanFilter(any(), eq("read")))
+                .thenReturn(document -> "carol-2".equals(document.id()));
+        for (int i = 1; i <= 3; i++) {
+            documentRepository.save(new Document("carol-" + i, "carol", Map.of()));
+        }
+
+        mockMvc.perform(get("/documents").param("owner", "carol").param("limit", "1")
+                        .with(httpBasic("alice", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.documents.length()").value(1))
+                .andExpect(jsonPath("$.documents[0].id").value("carol-2"))
+                .andExpect(jsonPath("$.nextCursor").value(DocumentPage.encodeCursor("carol-2")));
+        mockMvc.perform(get("/documents").param("owner", "carol").param("limit", "1")
+                        .param("cursor", DocumentPage.encodeCursor("carol-2"))
+                        .with(httpBasic("alice", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.documents.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void batchGetReturnsOnlyReadableDocuments() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.filterAccessibleDocuments(any(), anyList(), eq("read")))
+                .thenAnswer(invocation -> invocation.<List<Document>>getArgument(1).stream()
+                        .filter(document -> "alpha".equals(document.id()))
+                        .toList());
+
+        mockMvc.perform(post("/documents:batchGet")
+                        .with(httpBasic("alice", "password"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"documentIds\":[\"alpha\",\"beta\",\"missing\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value("alpha"));
+    }
+
+    @Test
+    void bulkImportStreamsOneResultPerLine() throws Exception {
+        when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
+                .thenReturn(true);
+        when(cerbosMethodAuthorizer.canCreateDocuments(any(), anyList())).thenAnswer(invocation ->
+                invocation.<List<DocumentRequest>>getArgument(1).stream()
+                        .map(request -> !"denied".equals(request.getDocumentId()))
+                        .toList());
+
+        mockMvc.perform(post("/documents/bulk")
+                        .with(httpBasic("alice", "password"))
+                        .contentType("application/x-ndjson")
+                        .content("""
+                                {"documentId":"bulk-1","content":{"title":"One"}}
+
+                                {"documentId":"denied"}
+                                {not json
+                                {"content":{"title":"Generated id"}}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(matchesPattern("""
+                        \\{"line":1,"id":"bulk-1","status":"created"}
+                        \\{"line":3,"id":"denied","status":"denied"}
+                        \\{"line":4,"status":"invalid","error":".+"}
+                        \\{"line":5,"id":"[0-9a-f-]{36}","status":"created"}
+                        """)));
+
+        when(cerbosMethodAuthorizer.canAccessDocument(any(), any(Document.class), eq("read"))).thenReturn(true);
+        when(cerbosMethodAuthorizer.canViewDocumentsAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
+        mockMvc.perform(get("/documents/bulk-1").with(httpBasic("alice", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owner").value("alice"));
+        mockMvc.perform(get("/documents/denied").with(httpBasic("alice", "password")))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void createDocumentHonoursCerbosDecision() throws Exception {
         when(authorizationService.isAllowed(any(Authentication.class), any(HttpServletRequest.class)))
@@ -0,0 +1,52 @@
+package dev.cerbos.spring.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StubPdpPolicyTest {
+
+    @Test
+    void shouldAllowOnlyWhatRulesGrant() {
+        CerbosProperties.StubRule readDocuments = new CerbosProperties.StubRule();
+        readDocuments.setResourceKind("document");
+        readDocuments.setRoles(List.of("employee"));
+        readDocuments.setActions(List.of("read"));
+        CerbosProperties.StubRule adminAll = new CerbosProperties.StubRule();
+        adminAll.setRoles(List.of("admin"));
+        CerbosProperties.StubPdp config = new CerbosProperties.StubPdp();
+        config.setRules(List.of(readDocuments, adminAll));
+
+        StubPdpPolicy policy = new StubPdpPolicy(config);
+
+        assertThat(policy.isAllowed("document", List.of("employee"), "read")).isTrue();
+        assertThat(policy.isAllowed("document", List.of("employee"), "delete")).isFalse();
+        assertThat(policy.isAllowed("http_request", List.of("employee"), "read")).isFalse();
+        assertThat(policy.isAllowed("http_request", List.of("admin"), "delete")).isTrue();
+    }
+
+    @Test
+    void shouldInjectConfiguredLatencyAndFailures() {
+        CerbosProperties.StubPdp config = new CerbosProperties.StubPdp();
+        config.setLatency(Duration.ofMillis(5));
+        config.setJitter(Duration.ofMillis(2));
+        config.setErrorRate(1.0);
+
+        StubPdpPolicy policy = new StubPdpPolicy(config);
+
+        assertThat(policy.nextDelayNanos()).isBetween(5_000_000L, 7_000_000L);
+        assertThat(policy.nextCallFails()).isTrue();
+        assertThat(new StubPdpPolicy(new CerbosProperties.StubPdp()).nextCallFails()).isFalse();
+    }
+
+    @Test
+    void shouldRejectInvalidErrorRate() {
+        CerbosProperties.StubPdp config = new CerbosProperties.StubPdp();
+        config.setErrorRate(1.5);
+
+        assertThatThrownBy(() -> new StubPdpPolicy(config)).isInstanceOf(IllegalArgumentException.class);
+    }
+}